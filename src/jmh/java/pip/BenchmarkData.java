@@ -0,0 +1,71 @@
+package pip;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import pip.model.Deadline;
+import pip.model.Event;
+import pip.model.Task;
+import pip.model.Todo;
+import pip.ui.Ui;
+
+/** Deterministic task fixtures shared by the benchmarks. */
+public final class BenchmarkData {
+    private static final String[] WORDS = {
+        "read", "chapter", "submit", "report", "team", "sync", "quiz", "lecture", "buy", "milk",
+        "book", "flights", "review", "pull", "request", "tutorial", "project", "meeting", "draft", "email"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a three-word description that varies with {@code i}.
+     *
+     * @param i Seed.
+     * @return Description text.
+     */
+    public static String description(int i) {
+        return WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length] + " " + i;
+    }
+
+    /**
+     * Builds {@code n} tasks cycling through todos, deadlines and events.
+     *
+     * @param n Number of tasks.
+     * @return Generated tasks.
+     */
+    public static List<Task> tasks(int n) {
+        List<Task> out = new ArrayList<>(n);
+        LocalDateTime base = LocalDateTime.of(2025, 10, 1, 9, 0);
+        for (int i = 0; i < n; i++) {
+            Task t;
+            switch (i % 3) {
+            case 0:
+                t = new Todo(description(i));
+                break;
+            case 1:
+                t = new Deadline(description(i), base.plusHours(i % 5000));
+                break;
+            default:
+                t = new Event(description(i), "Wed 8pm", "10pm");
+                break;
+            }
+            if (i % 4 == 0) {
+                t.mark();
+            }
+            out.add(t);
+        }
+        return out;
+    }
+
+    /**
+     * Returns a Ui that discards everything it prints.
+     *
+     * @return Silent Ui.
+     */
+    public static Ui silentUi() {
+        return new Ui((prefix, text, from, to) -> { });
+    }
+}
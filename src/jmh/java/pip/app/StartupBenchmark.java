@@ -0,0 +1,72 @@
+package pip.app;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pip.BenchmarkData;
+import pip.model.TaskList;
+import pip.storage.Storage;
+
+/**
+ * Time from launch to the first prompt, and to the first page of {@code list}, with the save
+ * file parsed up front ({@code eager}) or on demand ({@code lazy}). Each iteration opens the
+ * file afresh, as a new process would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class StartupBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int lines;
+
+    @Param({"eager", "lazy"})
+    private String load;
+
+    private Path file;
+
+    /** Writes a save file, with its sidecar index when loading lazily. */
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException, PipException {
+        System.setProperty(Storage.MODE_PROPERTY, "text");
+        System.setProperty(Storage.LOAD_PROPERTY, load);
+        file = Files.createTempFile("pip-startup", ".txt");
+        new Storage(file.toString()).save(BenchmarkData.tasks(lines));
+    }
+
+    /** Removes the generated files. */
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".idx"));
+    }
+
+    /** Everything {@code Pip} does before it prints the welcome message. */
+    @Benchmark
+    public Pip timeToPrompt() {
+        return new Pip(file.toString());
+    }
+
+    /** Loading followed by rendering the first page, as {@code list} does. */
+    @Benchmark
+    public String firstPage() throws PipException {
+        TaskList tasks = new Storage(file.toString()).loadTaskList();
+        return tasks.render(0, Math.min(100, tasks.size()));
+    }
+}
@@ -0,0 +1,68 @@
+package pip.gui;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pip.BenchmarkData;
+
+/**
+ * Bubbles per second for the FXML-parsed dialog box, the programmatic one, and a recycled
+ * box being refilled the way list cells do. Runs headless on the Monocle glass platform.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DialogBoxBenchmark {
+    private Image avatar;
+    private DialogBox recycled;
+    private int i;
+
+    /** Starts the JavaFX toolkit without a display. */
+    @Setup(Level.Trial)
+    public void startToolkit() throws InterruptedException {
+        System.setProperty("glass.platform", "Monocle");
+        System.setProperty("monocle.platform", "Headless");
+        System.setProperty("prism.order", "sw");
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException e) {
+            // Already running from an earlier trial in this fork.
+            started.countDown();
+        }
+        started.await();
+        avatar = new WritableImage(100, 100);
+        recycled = DialogBox.getPipDialog("", avatar);
+    }
+
+    /** Previous path: a new FXMLLoader parse per bubble. */
+    @Benchmark
+    public LegacyDialogBox fxml() {
+        return new LegacyDialogBox(BenchmarkData.description(i++), avatar);
+    }
+
+    /** Current path: nodes built directly in code. */
+    @Benchmark
+    public DialogBox programmatic() {
+        return DialogBox.getPipDialog(BenchmarkData.description(i++), avatar);
+    }
+
+    /** What a scrolling conversation does: refill an existing box, alternating speakers. */
+    @Benchmark
+    public DialogBox recycled() {
+        recycled.setMessage(BenchmarkData.description(i), avatar, (i++ & 1) == 0);
+        return recycled;
+    }
+}
@@ -0,0 +1,38 @@
+package pip.gui;
+
+import java.io.IOException;
+
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+
+/** The previous {@link DialogBox} construction path, which parsed its FXML for every bubble. */
+public class LegacyDialogBox extends HBox {
+    @FXML
+    private Label dialog;
+    @FXML
+    private ImageView displayPicture;
+
+    /**
+     * Parses {@code /view/LegacyDialogBox.fxml} and fills in the bubble.
+     *
+     * @param text Message text.
+     * @param img  Speaker's picture.
+     */
+    public LegacyDialogBox(String text, Image img) {
+        try {
+            FXMLLoader fxmlLoader = new FXMLLoader(LegacyDialogBox.class.getResource("/view/LegacyDialogBox.fxml"));
+            fxmlLoader.setController(this);
+            fxmlLoader.setRoot(this);
+            fxmlLoader.load();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        dialog.setText(text);
+        displayPicture.setImage(img);
+    }
+}
@@ -0,0 +1,58 @@
+package pip.logic;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import pip.app.PipException;
+
+/**
+ * Measures parsing one input in every supported date/time shape, plus smart formatting,
+ * against the original implementation kept in {@link LegacyDateTimeParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateTimeParserBenchmark {
+    @Param({
+        "2019-12-02T18:00",
+        "2/12/2019 1800", "2/12/2019 18:00", "2/12/2019 6:15pm", "2/12/2019 6pm", "2/12/2019",
+        "2-12-2019 1800", "2-12-2019 18:00", "2-12-2019 6:15pm", "2-12-2019 6pm", "2-12-2019"
+    })
+    private String input;
+
+    private final LocalDateTime withTime = LocalDateTime.of(2019, 12, 2, 18, 15);
+
+    /** Repeated input, so this is served from the cache after the first call. */
+    @Benchmark
+    public LocalDateTime parse() throws PipException {
+        return DateTimeParser.parseDateTimeFlexible(input);
+    }
+
+    @Benchmark
+    public LocalDateTime parseUncached() {
+        return DateTimeParser.parseUncached(input);
+    }
+
+    @Benchmark
+    public LocalDateTime legacyParse() throws PipException {
+        return LegacyDateTimeParser.parseDateTimeFlexible(input);
+    }
+
+    @Benchmark
+    public String format() {
+        return DateTimeParser.formatDateTimeSmart(withTime);
+    }
+
+    @Benchmark
+    public String legacyFormat() {
+        return LegacyDateTimeParser.formatDateTimeSmart(withTime);
+    }
+}
@@ -0,0 +1,49 @@
+package pip.logic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pip.BenchmarkData;
+import pip.app.PipException;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/** Measures {@code find} over lists of increasing size, with exact and typo-tolerant terms. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindBenchmark {
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    /** {@code exact} terms appear verbatim; {@code typo} terms are one edit away. */
+    @Param({"book", "bokk", "team sync", "taem snc", "project 4242", "nothing-matches"})
+    private String terms;
+
+    private TaskList tasks;
+    private Ui ui;
+    private Storage storage;
+
+    /** Builds the task list once per trial. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = new TaskList(BenchmarkData.tasks(size));
+        ui = BenchmarkData.silentUi();
+        storage = new Storage("build/jmh-find-unused.txt");
+    }
+
+    @Benchmark
+    public void find() throws PipException {
+        new FindTasks(terms).execute(tasks, ui, storage);
+    }
+}
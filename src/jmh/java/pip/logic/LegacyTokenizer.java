@@ -0,0 +1,43 @@
+package pip.logic;
+
+/**
+ * The original way a line was taken apart: a regex split for the verb, then
+ * {@code contains}/{@code indexOf} rescans of the arguments for {@code /by}, {@code /from}
+ * and {@code /to}, as {@code Parser}, {@code AddDeadline} and {@code AddEvent} used to do.
+ * Kept only as a benchmark baseline.
+ */
+public class LegacyTokenizer {
+    /**
+     * Splits a line into its verb, arguments and, for deadlines and events, their segments.
+     *
+     * @param fullCommand Raw line.
+     * @return {@code {verb, args}} followed by the description and times if the markers are present.
+     */
+    public static String[] tokenize(String fullCommand) {
+        String trimmed = fullCommand == null ? "" : fullCommand.trim();
+        String[] parts = trimmed.split("\\s+", 2);
+        String cmd = parts[0];
+        String args = parts.length > 1 ? parts[1] : "";
+        String raw = args.trim();
+        if (cmd.equals("deadline") && raw.contains("/by")) {
+            String[] by = splitOnce(raw, "/by");
+            return new String[] {cmd, args, by[0], by[1]};
+        }
+        if (cmd.equals("event") && raw.contains("/from") && raw.contains("/to")) {
+            String[] beforeFrom = splitOnce(raw, "/from");
+            String[] fromTo = splitOnce(beforeFrom[1], "/to");
+            return new String[] {cmd, args, beforeFrom[0], fromTo[0], fromTo[1]};
+        }
+        return new String[] {cmd, args};
+    }
+
+    private static String[] splitOnce(String text, String token) {
+        int p = text.indexOf(token);
+        if (p < 0) {
+            return new String[] { text.trim(), "" };
+        }
+        String left = text.substring(0, p).trim();
+        String right = text.substring(p + token.length()).trim();
+        return new String[] { left, right };
+    }
+}
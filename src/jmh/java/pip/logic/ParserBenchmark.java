@@ -0,0 +1,34 @@
+package pip.logic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import pip.app.PipException;
+
+/** Measures turning one raw input line into a {@link Command}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    @Param({
+        "list",
+        "todo read chapter 4",
+        "deadline submit report /by 2/12/2019 1800",
+        "event team sync /from Wed 8pm /to 10pm",
+        "mark 12",
+        "find book"
+    })
+    private String line;
+
+    @Benchmark
+    public Command parse() throws PipException {
+        return Parser.parse(line);
+    }
+}
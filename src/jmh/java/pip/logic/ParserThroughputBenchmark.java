@@ -0,0 +1,74 @@
+package pip.logic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pip.app.PipException;
+
+/**
+ * Lines per second for a mixed script, as fed to {@code --batch} or a server session: full
+ * parsing into commands, and taking lines apart with the single-pass {@link CommandLine}
+ * against the original regex split and rescans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParserThroughputBenchmark {
+    private static final String[] SCRIPT = {
+        "todo read chapter 4",
+        "deadline submit report /by 2/12/2019 1800",
+        "event team sync /from Wed 8pm /to 10pm",
+        "mark 12",
+        "unmark 3,7-9",
+        "find book",
+        "list",
+        "delete 4",
+        "due before 1/1/2026",
+        "bye",
+    };
+
+    /** Parses and dispatches every line to its command. */
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void parse(Blackhole bh) throws PipException {
+        for (String line : SCRIPT) {
+            bh.consume(Parser.parse(line));
+        }
+    }
+
+    /** Current tokenizer: one scan, then substrings at the offsets found. */
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void singlePass(Blackhole bh) {
+        for (String line : SCRIPT) {
+            CommandLine cl = CommandLine.parse(line);
+            bh.consume(cl.verb());
+            bh.consume(cl.args());
+            if (cl.byAt() >= 0) {
+                bh.consume(cl.between(cl.argsStart(), cl.byAt()));
+                bh.consume(cl.between(cl.byAt() + Command.TOKEN_BY.length(), cl.end()));
+            } else if (cl.fromAt() >= 0 && cl.toAt() >= 0) {
+                bh.consume(cl.between(cl.argsStart(), cl.fromAt()));
+                bh.consume(cl.between(cl.fromAt() + Command.TOKEN_FROM.length(), cl.toAt()));
+                bh.consume(cl.between(cl.toAt() + Command.TOKEN_TO.length(), cl.end()));
+            }
+        }
+    }
+
+    /** Previous tokenizer: regex split, then {@code contains} and {@code indexOf} rescans. */
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void legacy(Blackhole bh) {
+        for (String line : SCRIPT) {
+            bh.consume(LegacyTokenizer.tokenize(line));
+        }
+    }
+}
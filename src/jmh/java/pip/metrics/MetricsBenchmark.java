@@ -0,0 +1,42 @@
+package pip.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Cost of recording one command run from four threads at once, as server sessions do: the
+ * lock-free histogram behind {@link Metrics} against the same buckets guarded by a lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class MetricsBenchmark {
+    private final Metrics metrics = Metrics.get();
+    private final long[] lockedCounts = new long[2048];
+    private long lockedMax;
+
+    /** Records into the shared registry, as {@code Command.run} does. */
+    @Benchmark
+    public void lockFree() {
+        metrics.recordCommand("AddTodo", ThreadLocalRandom.current().nextLong(1_000, 1_000_000), true);
+    }
+
+    /** Records into the same buckets under one monitor. */
+    @Benchmark
+    public void locked() {
+        long v = ThreadLocalRandom.current().nextLong(1_000, 1_000_000);
+        synchronized (this) {
+            lockedCounts[LatencyHistogram.indexOf(v)]++;
+            lockedMax = Math.max(lockedMax, v);
+        }
+    }
+}
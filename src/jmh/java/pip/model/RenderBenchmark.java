@@ -0,0 +1,61 @@
+package pip.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pip.BenchmarkData;
+
+/**
+ * Measures {@code list} on a large list: unchanged, after marking one task (patched in place),
+ * after a delete (rebuilt from each task's cached line), and a single page of 100 tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private TaskList tasks;
+    private boolean done;
+
+    /** Builds the list and renders it once so the cached listing exists. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = new TaskList(BenchmarkData.tasks(size));
+        tasks.render();
+    }
+
+    @Benchmark
+    public String renderUnchanged() {
+        return tasks.render();
+    }
+
+    @Benchmark
+    public String renderAfterMark() {
+        done = !done;
+        tasks.setDone(size / 2, done);
+        return tasks.render();
+    }
+
+    @Benchmark
+    public String renderAfterDelete() {
+        tasks.add(new Todo("appended"));
+        tasks.remove(tasks.size() - 1);
+        return tasks.render();
+    }
+
+    @Benchmark
+    public String renderPage() {
+        return tasks.render(size / 2, size / 2 + 100);
+    }
+}
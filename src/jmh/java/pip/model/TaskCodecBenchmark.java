@@ -0,0 +1,46 @@
+package pip.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pip.BenchmarkData;
+import pip.app.PipException;
+
+/** Measures serializing and deserializing a single task of each type. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskCodecBenchmark {
+    /** Index into the generated fixtures: 0 is a todo, 1 a deadline, 2 an event. */
+    @Param({"0", "1", "2"})
+    private int kind;
+
+    private Task task;
+    private String line;
+
+    /** Picks the fixture task and its saved form. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        task = BenchmarkData.tasks(3).get(kind);
+        line = task.toDataString();
+    }
+
+    @Benchmark
+    public String toDataString() {
+        return task.toDataString();
+    }
+
+    @Benchmark
+    public Task fromDataString() throws PipException {
+        return Task.fromDataString(line);
+    }
+}
@@ -0,0 +1,58 @@
+package pip.model;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pip.BenchmarkData;
+
+/**
+ * Deleting one task from the middle of the list and undoing it: through {@link History}, which
+ * keeps only the removed task, against taking a whole-list copy first as {@link TaskList#checkpoint()}
+ * does and restoring it with {@link TaskList#rollback()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UndoBenchmark {
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private TaskList tasks;
+
+    /** Builds the list. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = new TaskList(BenchmarkData.tasks(size));
+    }
+
+    /** Records an inverse edit and undoes it. */
+    @Benchmark
+    public Edit inverseEdit() {
+        int i = size / 2;
+        BitSet picked = new BitSet();
+        picked.set(i);
+        Task removed = tasks.remove(i);
+        tasks.getHistory().record(Edit.removed(picked, List.of(removed)));
+        return tasks.getHistory().undo(tasks);
+    }
+
+    /** Copies the list before the delete and restores the copy. */
+    @Benchmark
+    public TaskList fullCopy() {
+        tasks.checkpoint();
+        tasks.remove(size / 2);
+        tasks.rollback();
+        return tasks;
+    }
+}
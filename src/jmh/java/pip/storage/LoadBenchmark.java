@@ -0,0 +1,70 @@
+package pip.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import pip.BenchmarkData;
+import pip.app.PipException;
+import pip.model.Task;
+
+/**
+ * Compares the mapped, scanner-based loader against the previous
+ * {@code Files.readAllLines} + regex-split path on generated save files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int lines;
+
+    private Path file;
+
+    /** Writes a save file with a mix of todos, deadlines and events. */
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException, PipException {
+        file = Files.createTempFile("pip-load", ".txt");
+        new Storage(file.toString()).save(BenchmarkData.tasks(lines));
+    }
+
+    /** Removes the generated file. */
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /** Current loader: memory-mapped scan with no per-line strings. */
+    @Benchmark
+    public List<Task> mapped() throws PipException {
+        return new Storage(file.toString()).load();
+    }
+
+    /** Previous loader: materialize all lines, then regex-split each one. */
+    @Benchmark
+    public List<Task> readAllLines() throws IOException, PipException {
+        List<Task> out = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty()) {
+                out.add(Task.fromDataString(trimmed));
+            }
+        }
+        return out;
+    }
+}
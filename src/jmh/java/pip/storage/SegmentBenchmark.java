@@ -0,0 +1,90 @@
+package pip.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import pip.BenchmarkData;
+import pip.app.PipException;
+import pip.model.Task;
+import pip.model.TaskList;
+
+/**
+ * Marking one task and saving, and loading the whole list, with {@link SegmentedStorage}
+ * against a single save file rewritten by {@link Storage}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SegmentBenchmark {
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private Path dir;
+    private Storage single;
+    private SegmentedStorage segmented;
+    private TaskList tasks;
+    private boolean done;
+
+    /** Saves {@code size} tasks both ways. */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, PipException {
+        dir = Files.createTempDirectory("pip-segments");
+        List<Task> generated = BenchmarkData.tasks(size);
+        single = new Storage(dir.resolve("single.txt").toString(), SaveFormat.TEXT, SyncPolicy.NEVER);
+        single.save(generated);
+        segmented = new SegmentedStorage(dir.resolve("pip.txt").toString(), 8192, SaveFormat.TEXT, SyncPolicy.NEVER);
+        segmented.load();
+        tasks = new TaskList(generated);
+        segmented.save(tasks.asList());
+    }
+
+    /** Removes the temporary directory. */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void markOneSegmented() throws PipException {
+        done = !done;
+        tasks.setDone(size / 2, done);
+        segmented.saveUpdated(tasks.asList(), size / 2);
+    }
+
+    @Benchmark
+    public void markOneSingleFile() throws PipException {
+        done = !done;
+        tasks.setDone(size / 2, done);
+        single.saveUpdated(tasks.asList(), size / 2);
+    }
+
+    @Benchmark
+    public List<Task> loadSegmented() throws PipException {
+        return new SegmentedStorage(dir.resolve("pip.txt").toString(), 8192).load();
+    }
+
+    @Benchmark
+    public List<Task> loadSingleFile() throws PipException {
+        return single.load();
+    }
+}
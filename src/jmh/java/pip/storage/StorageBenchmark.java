@@ -0,0 +1,74 @@
+package pip.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import pip.BenchmarkData;
+import pip.app.PipException;
+import pip.model.Task;
+
+/**
+ * Measures a full {@link Storage#load()} and {@link Storage#save(List)} across list sizes,
+ * in both the text and the binary save format, and with each {@link SyncPolicy}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"TEXT", "BINARY"})
+    private SaveFormat format;
+
+    @Param({"NEVER", "BATCHED", "ALWAYS"})
+    private SyncPolicy sync;
+
+    private Path dir;
+    private Storage storage;
+    private List<Task> tasks;
+
+    /** Creates a save file holding {@code size} tasks. */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, PipException {
+        dir = Files.createTempDirectory("pip-storage");
+        storage = new Storage(dir.resolve("pip.txt").toString(), format, sync);
+        tasks = BenchmarkData.tasks(size);
+        storage.save(tasks);
+    }
+
+    /** Removes the temporary directory. */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public List<Task> load() throws PipException {
+        return storage.load();
+    }
+
+    @Benchmark
+    public void save() throws PipException {
+        storage.save(tasks);
+    }
+}
@@ -1,16 +1,29 @@
 package pip.app;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Scanner;
 
+import pip.logic.BeginBatch;
 import pip.logic.Command;
+import pip.logic.CommitBatch;
 import pip.logic.Parser;
+import pip.logic.RollbackBatch;
+import pip.metrics.Metrics;
 import pip.model.TaskList;
 import pip.storage.Storage;
 import pip.ui.Ui;
+import pip.ui.WriterSink;
 
 
 /** Entry point for the Pip CLI task manager.*/
 public class Pip {
+    private static final String DEFAULT_SAVE_PATH = "data/pip.txt";
+    private static final String BATCH_FLAG = "--batch";
+
     private final Storage storage;
     private TaskList tasks;
     private final Ui ui;
@@ -23,41 +36,97 @@ public class Pip {
      * @param filePath Path to the data file.
      */
     public Pip(String filePath) {
-        this.ui = new Ui();
-        this.storage = new Storage(filePath);
+        this.ui = new Ui(WriterSink.console());
+        this.storage = Storage.open(filePath);
         try {
-            this.tasks = new TaskList(storage.load());
+            this.tasks = storage.loadTaskList();
+            if (storage.getQuarantinedCount() > 0) {
+                ui.showQuarantined(storage.getQuarantinedCount(), storage.getQuarantineFile().toString());
+            }
         } catch (PipException e) {
             ui.showLoadingError();
             this.tasks = new TaskList();
         }
     }
 
-    /** Runs the interactive command loop until {@code bye} is issued */
+    /** Runs the interactive command loop until {@code bye} is issued, flushing output after each command. */
     public void run() {
         ui.showWelcome();
+        ui.flush();
         Scanner sc = new Scanner(System.in);
         boolean isExit = false;
         while (!isExit) {
             try {
                 String fullCommand = ui.readCommand(sc);
                 Command c = Parser.parse(fullCommand);
-                c.execute(tasks, ui, storage);
+                c.run(tasks, ui, storage);
                 isExit = c.isExit();
             } catch (PipException e) {
                 ui.showError(e.getMessage());
+                RollbackBatch.abortOnError(tasks, ui, storage);
+            } finally {
+                ui.flush();
             }
         }
         sc.close();
     }
 
+    /**
+     * Runs every line of a script as one batch: the commands' own output is suppressed,
+     * the list is saved once at the end, and nothing is saved if any line fails.
+     *
+     * @param lines Commands to run; blank lines are skipped.
+     * @return {@code true} if every command succeeded and the batch was committed.
+     */
+    public boolean runBatch(List<String> lines) {
+        Ui quiet = new Ui((prefix, text, from, to) -> { });
+        int lineNo = 0;
+        try {
+            new BeginBatch().execute(tasks, quiet, storage);
+            for (String line : lines) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Command c = Parser.parse(line);
+                if (c.isExit()) {
+                    break;
+                }
+                c.run(tasks, quiet, storage);
+            }
+            new CommitBatch().execute(tasks, ui, storage);
+            storage.flush();
+            return true;
+        } catch (PipException e) {
+            ui.showError("Batch failed at line " + lineNo + ": " + e.getMessage());
+            RollbackBatch.abortOnError(tasks, ui, storage);
+            return false;
+        } finally {
+            ui.flush();
+        }
+    }
+
     /**
      * Entry point of the application.
-     * Initializes a Pip instance with the default storage file and runs it.
+     * Initializes a Pip instance with the default storage file and runs it, or with
+     * {@code --batch <file>} applies the file's commands as a single batch and exits.
      *
      * @param args command-line arguments
      */
     public static void main(String[] args) {
-        new Pip("data/pip.txt").run();
+        Metrics.get().startDumpIfConfigured();
+        if (args.length >= 2 && BATCH_FLAG.equals(args[0])) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("Could not read batch file: " + args[1]);
+                System.exit(2);
+                return;
+            }
+            boolean isOk = new Pip(DEFAULT_SAVE_PATH).runBatch(lines);
+            System.exit(isOk ? 0 : 1);
+        }
+        new Pip(DEFAULT_SAVE_PATH).run();
     }
 }
@@ -0,0 +1,276 @@
+package pip.app;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import pip.logic.BeginBatch;
+import pip.logic.Command;
+import pip.logic.CommitBatch;
+import pip.logic.Parser;
+import pip.logic.RedoChange;
+import pip.logic.RollbackBatch;
+import pip.logic.UndoChange;
+import pip.metrics.Metrics;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.BufferSink;
+import pip.ui.Ui;
+
+/**
+ * Serves one shared task list to many local clients over a line-based protocol.
+ * <p>
+ * Clients connect over TCP on the loopback interface or over a Unix domain socket, send one
+ * command per line, and receive Pip's reply followed by an empty line. Replies never contain
+ * empty lines, so the empty line marks where each reply ends. A greeting is sent the same way
+ * on connect, and {@code bye} ends the session.
+ * <p>
+ * Each connection is served by its own thread. Read-only commands share a read lock and
+ * everything else takes the write lock, so commands are applied one at a time. Changes are
+ * persisted through the server's single {@link Storage}; batches, undo and redo are not
+ * available because they would span or reverse other clients' changes.
+ */
+public class PipServer implements Closeable {
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 7878;
+
+    private static final String DEFAULT_SAVE_PATH = "data/pip.txt";
+    private static final String PORT_FLAG = "--port";
+    private static final String SOCKET_FLAG = "--socket";
+    private static final String MSG_NO_BATCH = "Batches are not available in server mode.";
+    private static final String MSG_NO_UNDO = "Undo and redo are not available in server mode.";
+
+    private final Storage storage;
+    private final TaskList tasks;
+    private final ServerSocketChannel server;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final ExecutorService sessions = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "pip-session-" + sessionCount.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private Path socketFile;
+
+    /**
+     * Loads the task list from {@code storage} and binds to {@code address}.
+     * Call {@link #start()} to begin accepting clients.
+     *
+     * @param storage Storage that all sessions persist through.
+     * @param address Loopback TCP address or Unix domain socket address.
+     * @throws PipException If the task list cannot be loaded or the address cannot be bound.
+     */
+    public PipServer(Storage storage, SocketAddress address) throws PipException {
+        this.storage = storage;
+        this.tasks = storage.loadTaskList();
+        try {
+            if (address instanceof UnixDomainSocketAddress) {
+                socketFile = ((UnixDomainSocketAddress) address).getPath();
+                Files.deleteIfExists(socketFile);
+                server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            } else {
+                server = ServerSocketChannel.open();
+            }
+            server.bind(address);
+        } catch (IOException e) {
+            throw new PipException("Could not listen on " + address + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the address clients should connect to, with the actual port if 0 was requested.
+     *
+     * @return Bound address.
+     * @throws IOException If the server has been closed.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /** Starts accepting clients on a background thread. */
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "pip-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Blocks until {@link #close()} is called.
+     *
+     * @throws InterruptedException If the waiting thread is interrupted.
+     */
+    public void awaitClose() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops accepting clients, ends open sessions and writes any pending changes.
+     *
+     * @throws IOException If pending changes cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        sessions.shutdownNow();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+            lock.writeLock().lock();
+            try {
+                storage.flush();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (PipException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            if (socketFile != null) {
+                Files.deleteIfExists(socketFile);
+            }
+            stopped.countDown();
+        }
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel client = server.accept();
+                if (socketFile == null) {
+                    // Replies larger than one buffer go out in several writes; don't let Nagle hold them back.
+                    client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                sessions.execute(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Failed to accept a client: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Runs one client's session until it says bye or disconnects. */
+    private void serve(SocketChannel client) {
+        BufferSink output = new BufferSink();
+        Ui ui = new Ui(output);
+        try (client) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(client), StandardCharsets.UTF_8));
+            ui.showWelcome();
+            reply(out, output.drain());
+            String line;
+            while ((line = in.readLine()) != null) {
+                boolean isExit = handle(line, ui);
+                reply(out, output.drain());
+                if (isExit) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The client went away; nothing to clean up beyond closing the channel.
+        }
+    }
+
+    /**
+     * Parses and runs one command line under the appropriate lock.
+     *
+     * @return Whether the session should end.
+     */
+    private boolean handle(String line, Ui ui) {
+        Command c;
+        try {
+            c = Parser.parse(line);
+            if (c instanceof BeginBatch || c instanceof CommitBatch || c instanceof RollbackBatch) {
+                throw new PipException(MSG_NO_BATCH);
+            }
+            if (c instanceof UndoChange || c instanceof RedoChange) {
+                throw new PipException(MSG_NO_UNDO);
+            }
+        } catch (PipException e) {
+            ui.showError(e.getMessage());
+            return false;
+        }
+        Lock held = c.isReadOnly() ? lock.readLock() : lock.writeLock();
+        held.lock();
+        try {
+            c.run(tasks, ui, storage);
+        } catch (PipException e) {
+            ui.showError(e.getMessage());
+        } finally {
+            held.unlock();
+        }
+        return c.isExit();
+    }
+
+    private static void reply(Writer out, String text) throws IOException {
+        if (!text.isEmpty()) {
+            out.write(text);
+            out.write('\n');
+        }
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Starts a server on the default save file.
+     * Usage: {@code PipServer [--port <n>] [--socket <path>]}; without options it listens on
+     * {@value #DEFAULT_PORT} on the loopback interface.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String[] args) {
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), DEFAULT_PORT);
+        if (args.length == 2 && PORT_FLAG.equals(args[0])) {
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[1]));
+        } else if (args.length == 2 && SOCKET_FLAG.equals(args[0])) {
+            address = UnixDomainSocketAddress.of(args[1]);
+        } else if (args.length != 0) {
+            System.err.println("Usage: PipServer [--port <n>] [--socket <path>]");
+            System.exit(2);
+        }
+        Metrics.get().startDumpIfConfigured();
+        Storage storage = Storage.open(DEFAULT_SAVE_PATH);
+        try (PipServer server = new PipServer(storage, address)) {
+            if (storage.getQuarantinedCount() > 0) {
+                System.err.println("Moved " + storage.getQuarantinedCount() + " unreadable line(s) of the save file to "
+                        + storage.getQuarantineFile());
+            }
+            server.start();
+            System.out.println("Pip server listening on " + server.getAddress());
+            server.awaitClose();
+        } catch (PipException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
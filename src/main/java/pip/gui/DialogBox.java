@@ -1,52 +1,86 @@
 package pip.gui;
 
-import java.io.IOException;
 import java.util.Collections;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's face
  * and a label containing text from the speaker.
+ * A box can be refilled with another message, so list cells reuse one box each.
+ * The box is built in code rather than from FXML, so creating one does no parsing.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final String STYLESHEET = DialogBox.class.getResource("/css/dialog-box.css").toExternalForm();
+    private static final double PICTURE_SIZE = 99.0;
+
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
+
+    private boolean isFlipped;
 
     private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        getStylesheets().add(STYLESHEET);
+        setAlignment(Pos.TOP_RIGHT);
+        setMaxWidth(Double.MAX_VALUE);
+        setMaxHeight(Double.MAX_VALUE);
+        setPrefWidth(400.0);
+        setPadding(new Insets(15.0, 5.0, 15.0, 5.0));
+
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.setWrapText(true);
+        dialog.setPadding(new Insets(6.0));
+        HBox.setMargin(dialog, new Insets(0, 7.0, 0, 7.0));
 
+        displayPicture.setId("displayPicture");
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setPreserveRatio(true);
+        displayPicture.setPickOnBounds(true);
+
+        getChildren().addAll(dialog, displayPicture);
         dialog.setText(text);
         displayPicture.setImage(img);
     }
-
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Flips the dialog box such that the ImageView is on the left and text on the right,
+     * or back again.
      */
     private void flip() {
         ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
         Collections.reverse(tmp);
         getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
-        dialog.getStyleClass().add("reply-label");
+        isFlipped = !isFlipped;
+        setAlignment(isFlipped ? Pos.TOP_LEFT : Pos.TOP_RIGHT);
+        if (isFlipped) {
+            dialog.getStyleClass().add("reply-label");
+        } else {
+            dialog.getStyleClass().remove("reply-label");
+        }
+    }
+
+    /**
+     * Replaces the text and picture, flipping the box if the speaker changed sides.
+     *
+     * @param text  Message text.
+     * @param img   Speaker's picture.
+     * @param isPip Whether Pip is speaking (picture on the left).
+     */
+    public void setMessage(String text, Image img, boolean isPip) {
+        dialog.setText(text);
+        displayPicture.setImage(img);
+        if (isPip != isFlipped) {
+            flip();
+        }
     }
 
     public static DialogBox getUserDialog(String text, Image img) {
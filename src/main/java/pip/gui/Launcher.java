@@ -2,11 +2,14 @@ package pip.gui;
 
 import javafx.application.Application;
 
+import pip.metrics.Metrics;
+
 /**
  * A launcher class to workaround classpath issues.
  */
 public class Launcher {
     public static void main(String[] args) {
+        Metrics.get().startDumpIfConfigured();
         Application.launch(Main.class, args);
     }
 }
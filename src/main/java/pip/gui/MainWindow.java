@@ -1,35 +1,42 @@
 package pip.gui;
 
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 
 /**
  * Controller for the main GUI.
+ * The conversation is a virtualized {@link ListView}: only visible messages have nodes,
+ * and the oldest messages are dropped once {@link #MAX_HISTORY} is exceeded.
+ * Commands run in the background; a spinner shows while any reply is outstanding.
  */
 public class MainWindow extends AnchorPane {
     private static final String USER_IMG_PATH = "/images/user.jpeg";
     private static final String PIP_IMG_PATH = "/images/pip.jpg";
 
-    private static final double AVATAR_SIZE = 300;
+    /** Avatars are drawn at 50px; twice that keeps them sharp on high-density screens. */
+    private static final double AVATAR_SIZE = 100;
+    /** Number of messages kept in the conversation; older ones are discarded. */
+    private static final int MAX_HISTORY = 500;
 
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Message> conversation;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private ProgressIndicator busyIndicator;
 
     private Pip pip;
     private Image rawUserImage = new Image(this.getClass().getResourceAsStream(USER_IMG_PATH));
@@ -37,15 +44,18 @@ public class MainWindow extends AnchorPane {
 
     private Image userImage;
     private Image pipImage;
+    /** Commands submitted but not yet answered; only touched on the JavaFX thread. */
+    private int pendingReplies;
 
     /**
      * Initializes the main window after its FXML elements have been loaded.
      * */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
         userImage = makeCircularSnapshot(rawUserImage, AVATAR_SIZE);
         pipImage = makeCircularSnapshot(rawPipImage, AVATAR_SIZE);
+        conversation.setCellFactory(v -> new MessageCell(v, userImage, pipImage));
+        busyIndicator.setVisible(false);
     }
 
     /** Injects the Pip instance */
@@ -53,15 +63,13 @@ public class MainWindow extends AnchorPane {
         pip = p;
         String greet = pip.getStartupGreeting();
         if (greet != null && !greet.isBlank()) {
-            dialogContainer.getChildren().add(
-                    DialogBox.getPipDialog(greet, pipImage)
-            );
+            append(Message.fromPip(greet, null, 1));
         }
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Pip's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Echoes the user input into the conversation and runs it in the background; Pip's reply
+     * is appended when it arrives. Clears the user input straight away.
      */
     @FXML
     private void handleUserInput() {
@@ -70,12 +78,29 @@ public class MainWindow extends AnchorPane {
         if (input == null || input.isBlank()) {
             return;
         }
-        String response = pip.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getPipDialog(response, pipImage)
-        );
+        append(Message.fromUser(input));
         userInput.clear();
+        setPending(pendingReplies + 1);
+        pip.submit(input, reply -> {
+            setPending(pendingReplies - 1);
+            append(reply);
+        });
+    }
+
+    private void setPending(int count) {
+        pendingReplies = count;
+        busyIndicator.setVisible(count > 0);
+    }
+
+    /** Adds messages at the bottom, trims the history to its cap and scrolls to the newest. */
+    private void append(Message... messages) {
+        ObservableList<Message> items = conversation.getItems();
+        items.addAll(messages);
+        int excess = items.size() - MAX_HISTORY;
+        if (excess > 0) {
+            items.remove(0, excess);
+        }
+        conversation.scrollTo(items.size() - 1);
     }
 
     private static Image makeCircularSnapshot(Image src, double size) {
@@ -0,0 +1,56 @@
+package pip.gui;
+
+import java.util.List;
+
+/** One entry of the conversation shown in the main window. */
+public final class Message {
+    private final boolean isPip;
+    private final String text;
+    private final List<String> rows;
+    private final int firstNumber;
+
+    private Message(boolean isPip, String text, List<String> rows, int firstNumber) {
+        this.isPip = isPip;
+        this.text = text;
+        this.rows = rows;
+        this.firstNumber = firstNumber;
+    }
+
+    /**
+     * Creates a message typed by the user.
+     *
+     * @param text What the user typed.
+     * @return User message.
+     */
+    public static Message fromUser(String text) {
+        return new Message(false, text, null, 1);
+    }
+
+    /**
+     * Creates a reply from Pip, optionally followed by a list of tasks.
+     *
+     * @param text        Reply text.
+     * @param rows        Lines of the tasks to show as rows under the text, or {@code null}.
+     * @param firstNumber List number of the first row.
+     * @return Pip message.
+     */
+    public static Message fromPip(String text, List<String> rows, int firstNumber) {
+        return new Message(true, text, rows, firstNumber);
+    }
+
+    public boolean isPip() {
+        return isPip;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<String> getRows() {
+        return rows;
+    }
+
+    public int getFirstNumber() {
+        return firstNumber;
+    }
+}
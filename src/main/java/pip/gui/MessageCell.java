@@ -0,0 +1,66 @@
+package pip.gui;
+
+import javafx.collections.FXCollections;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
+
+/**
+ * Conversation row that reuses a single {@link DialogBox} for whichever message it shows.
+ * A reply that lists tasks also gets a nested list whose rows are virtualized in turn, so
+ * a long task list costs only as many nodes as fit on screen.
+ */
+class MessageCell extends ListCell<Message> {
+    private static final double TASK_LIST_HEIGHT = 260;
+    private static final double SCROLLBAR_ALLOWANCE = 20;
+
+    private final Image userImage;
+    private final Image pipImage;
+    private final DialogBox box = DialogBox.getUserDialog("", null);
+    private final ListView<String> taskRows = new ListView<>();
+    /** List number of the first row in {@link #taskRows}; read by its cells. */
+    private int firstNumber = 1;
+    private final VBox withTasks = new VBox();
+
+    MessageCell(ListView<Message> owner, Image userImage, Image pipImage) {
+        this.userImage = userImage;
+        this.pipImage = pipImage;
+        box.prefWidthProperty().bind(owner.widthProperty().subtract(SCROLLBAR_ALLOWANCE));
+        taskRows.setPrefHeight(TASK_LIST_HEIGHT);
+        taskRows.getStyleClass().add("task-list");
+        taskRows.setCellFactory(v -> new TaskRowCell());
+        withTasks.setSpacing(4);
+    }
+
+    @Override
+    protected void updateItem(Message item, boolean empty) {
+        super.updateItem(item, empty);
+        setText(null);
+        if (empty || item == null) {
+            setGraphic(null);
+            return;
+        }
+        box.setMessage(item.getText(), item.isPip() ? pipImage : userImage, item.isPip());
+        if (item.getRows() == null) {
+            withTasks.getChildren().clear();
+            taskRows.setItems(null);
+            setGraphic(box);
+            return;
+        }
+        firstNumber = item.getFirstNumber();
+        taskRows.setItems(FXCollections.observableList(item.getRows()));
+        taskRows.scrollTo(0);
+        withTasks.getChildren().setAll(box, taskRows);
+        setGraphic(withTasks);
+    }
+
+    /** One task of a listed reply, numbered by its position in the whole list. */
+    private final class TaskRowCell extends ListCell<String> {
+        @Override
+        protected void updateItem(String item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(empty || item == null ? null : (firstNumber + getIndex()) + ". " + item);
+        }
+    }
+}
@@ -1,28 +1,58 @@
 package pip.gui;
 
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import javafx.application.Platform;
 import pip.app.PipException;
 import pip.logic.Command;
 import pip.logic.Parser;
+import pip.logic.RollbackBatch;
+import pip.model.Task;
 import pip.model.TaskList;
 import pip.storage.Storage;
+import pip.ui.BufferSink;
 import pip.ui.Ui;
 
 /**
  * GUI adapter for Pip: runs commands and returns the Ui output as text.
+ * <p>
+ * {@link #submit(String, Consumer)} runs commands on a single background thread, so the
+ * JavaFX thread never waits on a search or a save, and commands still run and answer in
+ * the order they were typed.
  */
 public class Pip {
     private static final String DEFAULT_SAVE_PATH = "data/pip.txt";
+    /**
+     * Most rows one reply keeps. Replies stay in the conversation long after they are shown,
+     * so each keeps only this much of the list rather than all of it.
+     */
+    private static final int MAX_SHOWN_ROWS = 1000;
     private final Storage storage;
     private TaskList tasks;
     private final Ui ui;
 
-    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-    private boolean exitRequested = false;
+    private final BufferSink output = new BufferSink();
+    private final String greeting;
+    /** Written by the worker thread, read by whichever thread asks {@link #shouldExit()}. */
+    private volatile boolean exitRequested = false;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pip-gui-worker");
+        t.setDaemon(true);
+        return t;
+    });
+    /**
+     * Lines of the tasks shown by the command running now, kept as rows instead of text;
+     * {@code null} if none. Volatile because {@link #getResponse(String)} may run on the worker
+     * or the caller's thread.
+     */
+    private volatile List<String> shownRows;
+    /** List number of the first row in {@link #shownRows}. */
+    private volatile int firstShown;
 
     public Pip() {
         this(DEFAULT_SAVE_PATH);
@@ -30,30 +60,85 @@ public class Pip {
 
     /** Bridges Pip's core logic to the JavaFX UI.*/
     public Pip(String filePath) {
-        PrintStream capture = new PrintStream(buffer, true);
-        this.ui = new Ui(capture);
-        this.storage = new Storage(filePath);
+        this.ui = new Ui(output) {
+            @Override
+            public void showTaskList(TaskList list) {
+                if (list.size() == 0) {
+                    super.showTaskList(list);
+                    return;
+                }
+                showRows(list, 0, list.size());
+            }
+
+            @Override
+            public void showTaskPage(TaskList list, int from, int to) {
+                showRows(list, from, to);
+            }
+        };
+        this.storage = Storage.open(filePath);
         try {
-            this.tasks = new TaskList(storage.load());
+            this.tasks = storage.loadTaskList();
+            if (storage.getQuarantinedCount() > 0) {
+                ui.showQuarantined(storage.getQuarantinedCount(), storage.getQuarantineFile().toString());
+            }
         } catch (PipException e) {
             ui.showLoadingError();
             this.tasks = new TaskList();
         }
 
         ui.showWelcome();
+        greeting = output.drain();
+    }
+
+    /**
+     * Shows the header and keeps the lines of tasks {@code from} to {@code to} as rows, as they
+     * read now, so a later change to a task does not alter a reply already shown. Past
+     * {@link #MAX_SHOWN_ROWS} rows, the reply says how to page through the rest instead.
+     */
+    private void showRows(TaskList list, int from, int to) {
+        int end = Math.min(to, from + MAX_SHOWN_ROWS);
+        ui.show(TaskList.LIST_HEADER);
+        if (end < to) {
+            ui.show("Showing tasks " + (from + 1) + "-" + end + " of " + list.size()
+                    + ". Use list <page> [--page-size <n>] to see the others.");
+        }
+        List<String> rows = new ArrayList<>(end - from);
+        for (Task t : list.snapshot(from, end)) {
+            rows.add(t.toString());
+        }
+        shownRows = Collections.unmodifiableList(rows);
+        firstShown = from + 1;
     }
 
     /** If you want to show the greeting at app start, call this once from MainWindow.initialize(). */
     public String getStartupGreeting() {
-        return buffer.toString(StandardCharsets.UTF_8);
+        return greeting;
+    }
+
+    /**
+     * Runs {@code input} on the background thread and hands Pip's reply to {@code onReply}
+     * on the JavaFX thread. Replies arrive in submission order.
+     *
+     * @param input   Command typed by the user.
+     * @param onReply Receives the reply; called on the JavaFX Application Thread.
+     */
+    public void submit(String input, Consumer<Message> onReply) {
+        worker.execute(() -> {
+            String response = getResponse(input);
+            Message reply = Message.fromPip(response, shownRows, firstShown);
+            Platform.runLater(() -> onReply.accept(reply));
+        });
     }
 
-    /** Called by the GUI for each user message; returns what Ui printed. */
+    /**
+     * Runs a command on the calling thread and returns what Ui printed.
+     * Must not be called while submitted commands may be running.
+     */
     public String getResponse(String input) {
-        buffer.reset();
+        shownRows = null;
         try {
             Command c = Parser.parse(input);
-            c.execute(tasks, ui, storage);
+            c.run(tasks, ui, storage);
             exitRequested = c.isExit();
 
             if (exitRequested) {
@@ -61,8 +146,9 @@ public class Pip {
             }
         } catch (PipException e) {
             ui.showError(e.getMessage());
+            RollbackBatch.abortOnError(tasks, ui, storage);
         }
-        return buffer.toString(StandardCharsets.UTF_8).trim();
+        return output.drain();
     }
 
     public boolean shouldExit() {
@@ -13,22 +13,29 @@ import pip.ui.Ui;
  * {@code <desc> /by <time>} (supports multiple date/time formats).
  */
 public class AddDeadline extends Command {
-    private final String raw;
+    /** Text before {@code /by}; {@code null} if there is no {@code /by}. */
+    private final String desc;
+    private final String by;
 
     public AddDeadline(String args) {
-        this.raw = args == null ? "" : args.trim();
+        this(CommandLine.ofArgs(args));
+    }
+
+    AddDeadline(CommandLine line) {
+        int at = line.byAt();
+        this.desc = at < 0 ? null : line.between(line.argsStart(), at);
+        this.by = at < 0 ? null : line.between(at + TOKEN_BY.length(), line.end());
     }
 
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
         assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
-        if (!raw.contains(TOKEN_BY)) {
+        if (desc == null) {
             throw new PipException(MSG_USAGE_DEADLINE);
         }
 
-        String[] parts = splitOnce(raw, TOKEN_BY);
-        String desc = requireNonEmpty(parts[0], MSG_EMPTY_DEADLINE);
-        String by = requireNonEmpty(parts[1], MSG_EMPTY_DEADLINE);
+        requireNonEmpty(desc, MSG_EMPTY_DEADLINE);
+        requireNonEmpty(by, MSG_EMPTY_DEADLINE);
 
         LocalDateTime dt = DateTimeParser.parseDateTimeFlexible(by);
         addAndPersist(new Deadline(desc, dt), tasks, storage, ui);
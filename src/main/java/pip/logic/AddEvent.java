@@ -11,28 +11,43 @@ import pip.ui.Ui;
  * {@code <desc> /from <start> /to <end>}.
  */
 public class AddEvent extends Command {
-    private final String raw;
+    /** Text before {@code /from}; {@code null} unless both {@code /from} and a later {@code /to} are present. */
+    private final String desc;
+    private final String start;
+    private final String end;
 
     public AddEvent(String args) {
-        this.raw = args == null ? "" : args.trim();
+        this(CommandLine.ofArgs(args));
+    }
+
+    AddEvent(CommandLine line) {
+        int from = line.fromAt();
+        int to = line.toAt();
+        boolean isComplete = from >= 0 && to >= 0;
+        this.desc = isComplete ? line.between(line.argsStart(), from) : null;
+        this.start = isComplete ? line.between(from + TOKEN_FROM.length(), to) : null;
+        this.end = isComplete ? line.between(to + TOKEN_TO.length(), line.end()) : null;
     }
 
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
         assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
-        if (!raw.contains(TOKEN_FROM) || !raw.contains(TOKEN_TO)) {
+        if (desc == null) {
             throw new PipException(MSG_USAGE_EVENT);
         }
 
-        // Split into desc | remainderAfterFrom
-        String[] beforeFrom = splitOnce(raw, TOKEN_FROM);
-        String desc = requireNonEmpty(beforeFrom[0], MSG_EMPTY_EVENT);
+        requireNonEmpty(desc, MSG_EMPTY_EVENT);
+        requireNonEmpty(start, MSG_EMPTY_EVENT);
+        requireNonEmpty(end, MSG_EMPTY_EVENT);
 
-        // Split remainder into start | end
-        String[] fromTo = splitOnce(beforeFrom[1], TOKEN_TO);
-        String start = requireNonEmpty(fromTo[0], MSG_EMPTY_EVENT);
-        String end = requireNonEmpty(fromTo[1], MSG_EMPTY_EVENT);
-
-        addAndPersist(new Event(desc, start, end), tasks, storage, ui);
+        Event event = new Event(desc, start, end);
+        addAndPersist(event, tasks, storage, ui);
+        if (event.getStart() != null) {
+            int clashes = tasks.conflictsWith(event).size();
+            if (clashes > 0) {
+                ui.show("Heads up: this overlaps " + clashes + (clashes == 1 ? " other event" : " other events")
+                        + ". Type conflicts " + tasks.size() + " to see them.");
+            }
+        }
     }
 }
@@ -0,0 +1,25 @@
+package pip.logic;
+
+import pip.app.PipException;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/**
+ * Opens a batch: later changes are applied in memory only and saved together on
+ * {@code commit}, or all undone on {@code rollback} or on the first error.
+ * Beginning again while a batch is open only says so, leaving the open batch as it is.
+ */
+public class BeginBatch extends Command {
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
+        if (storage.isBatching()) {
+            ui.show("A batch is already open. Use commit or rollback first.");
+            return;
+        }
+        storage.beginBatch();
+        tasks.checkpoint();
+        ui.show("Batch started. Changes will be saved together when you commit.");
+    }
+}
@@ -1,6 +1,11 @@
 package pip.logic;
 
+import java.util.BitSet;
+import java.util.List;
+
 import pip.app.PipException;
+import pip.metrics.Metrics;
+import pip.model.Edit;
 import pip.model.Task;
 import pip.model.TaskList;
 import pip.storage.Storage;
@@ -22,9 +27,44 @@ public abstract class Command {
     protected static final String MSG_EMPTY_EVENT = "Event description/times cannot be empty :((";
     protected static final String MSG_EMPTY_LIST = "Your list is empty! Add some tasks first :))";
 
+    /** Most tasks a bulk change lists by name before summarising the rest. */
+    protected static final int MAX_TASKS_SHOWN = 10;
+
     /** Executes the command against the given model, UI, and storage. */
     public abstract void execute(TaskList tasks, Ui ui, Storage storage) throws PipException;
 
+    /**
+     * Executes the command and records in {@link Metrics} how long it took, whether it failed,
+     * and how many tasks the list holds afterwards. Entry points call this rather than
+     * {@link #execute(TaskList, Ui, Storage)} directly.
+     */
+    public final void run(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        long start = System.nanoTime();
+        boolean isOk = false;
+        try {
+            execute(tasks, ui, storage);
+            isOk = true;
+        } finally {
+            Metrics metrics = Metrics.get();
+            metrics.recordCommand(typeName(), System.nanoTime() - start, isOk);
+            metrics.recordTaskCount(tasks.size());
+        }
+    }
+
+    /** Name this command's runs are recorded under: its class name, or the full name if anonymous. */
+    protected String typeName() {
+        String name = getClass().getSimpleName();
+        return name.isEmpty() ? getClass().getName() : name;
+    }
+
+    /**
+     * Whether this command only reads the task list, so it may run alongside other readers.
+     * Commands that change the list or its storage must keep the default of {@code false}.
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
     /** Whether the application should exit after this command completes. */
     public boolean isExit() {
         return false;
@@ -39,10 +79,11 @@ public abstract class Command {
         return t;
     }
 
-    /** Adds a task, persists list, and shows standard “added” UI. */
+    /** Adds a task, records it for undo, persists list, and shows standard “added” UI. */
     protected static void addAndPersist(Task t, TaskList tasks, Storage storage, Ui ui) throws PipException {
         tasks.add(t);
-        storage.save(tasks.asList());
+        tasks.getHistory().record(Edit.added(tasks.size() - 1, t));
+        storage.saveAdded(tasks.asList(), t);
         showAdded(t, tasks, ui);
     }
 
@@ -51,14 +92,49 @@ public abstract class Command {
         ui.show(MSG_ADDED_PREFIX + t + MSG_COUNT_PREFIX + tasks.size() + MSG_COUNT_SUFFIX);
     }
 
-    /** Splits text by the first occurrence of token; returns {left, right} trimmed. */
-    protected static String[] splitOnce(String text, String token) {
-        int p = text.indexOf(token);
-        if (p < 0) {
-            return new String[] { text.trim(), "" };
+    /** Returns the picked positions whose task's done state differs from {@code done}. */
+    protected static BitSet toBeFlipped(TaskList tasks, BitSet picked, boolean done) {
+        BitSet flipped = new BitSet();
+        for (int i = picked.nextSetBit(0); i >= 0; i = picked.nextSetBit(i + 1)) {
+            if (tasks.get(i).isDone() != done) {
+                flipped.set(i);
+            }
+        }
+        return flipped;
+    }
+
+    /**
+     * Saves what undoing or redoing {@code edit} just did, through the single-task save when it
+     * affected one task, so the cost does not grow with the list.
+     */
+    protected static void saveReplayed(Edit edit, boolean isUndo, TaskList tasks, Storage storage)
+            throws PipException {
+        List<Task> items = tasks.asList();
+        switch (edit.effect(isUndo)) {
+        case INSERTED:
+            storage.saveInserted(items, edit.effectIndex());
+            break;
+        case REMOVED:
+            storage.saveRemoved(items, edit.effectIndex());
+            break;
+        case UPDATED:
+            storage.saveUpdated(items, edit.effectIndex());
+            break;
+        default:
+            storage.save(items);
+            break;
+        }
+    }
+
+    /** Lists tasks one per line for a confirmation message, naming only the first few. */
+    protected static String describeTasks(List<Task> changed) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(changed.size(), MAX_TASKS_SHOWN); i++) {
+            sb.append("\n  ").append(changed.get(i));
+        }
+        if (changed.size() > MAX_TASKS_SHOWN) {
+            sb.append("\n  ...and ").append(changed.size() - MAX_TASKS_SHOWN).append(" more.");
         }
-        String left = text.substring(0, p).trim();
-        String right = text.substring(p + token.length()).trim();
-        return new String[] { left, right };
+        return sb.toString();
     }
 }
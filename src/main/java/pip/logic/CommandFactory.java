@@ -0,0 +1,17 @@
+package pip.logic;
+
+import pip.app.PipException;
+
+/** Builds the command for one input line; registered with {@link Parser#register(String, CommandFactory)}. */
+@FunctionalInterface
+public interface CommandFactory {
+    /**
+     * Creates the command for {@code line}. May return a shared instance if the command
+     * keeps no state of its own.
+     *
+     * @param line Scanned input line whose verb selected this factory.
+     * @return Command to execute.
+     * @throws PipException If the arguments are invalid.
+     */
+    Command create(CommandLine line) throws PipException;
+}
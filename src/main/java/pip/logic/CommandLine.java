@@ -0,0 +1,209 @@
+package pip.logic;
+
+import java.util.Arrays;
+
+/**
+ * One line of user input, split into a verb and its arguments by a single left-to-right scan.
+ * The same scan notes where the {@code /by}, {@code /from} and {@code /to} markers are, so
+ * commands that need them cut substrings at known offsets instead of searching the text again.
+ * Nothing is copied until a part is asked for.
+ * <p>
+ * Whitespace is the set matched by the regex {@code \s}. The first {@code /by} and the first
+ * {@code /from} count; {@code /to} counts only after {@code /from}.
+ */
+public final class CommandLine {
+    private final String text;
+    private final int verbStart;
+    private final int verbEnd;
+    private final int argsStart;
+    private final int end;
+    private final int by;
+    private final int from;
+    private final int to;
+
+    private CommandLine(String text, boolean hasVerb) {
+        this.text = text;
+        int e = text.length();
+        while (e > 0 && isSpace(text.charAt(e - 1))) {
+            e--;
+        }
+        int i = 0;
+        while (i < e && isSpace(text.charAt(i))) {
+            i++;
+        }
+        this.verbStart = i;
+        while (hasVerb && i < e && !isSpace(text.charAt(i))) {
+            i++;
+        }
+        this.verbEnd = i;
+        while (i < e && isSpace(text.charAt(i))) {
+            i++;
+        }
+        this.argsStart = i;
+        this.end = e;
+
+        int byAt = -1;
+        int fromAt = -1;
+        int toAt = -1;
+        for (int j = i; j < e; j++) {
+            if (text.charAt(j) != '/') {
+                continue;
+            }
+            if (byAt < 0 && text.startsWith(Command.TOKEN_BY, j)) {
+                byAt = j;
+            } else if (fromAt < 0 && text.startsWith(Command.TOKEN_FROM, j)) {
+                fromAt = j;
+            } else if (fromAt >= 0 && toAt < 0 && text.startsWith(Command.TOKEN_TO, j)) {
+                toAt = j;
+            }
+        }
+        this.by = byAt;
+        this.from = fromAt;
+        this.to = toAt;
+    }
+
+    /**
+     * Scans a full input line: a verb, then its arguments.
+     *
+     * @param line Raw line; {@code null} is treated as empty.
+     * @return The scanned line.
+     */
+    public static CommandLine parse(String line) {
+        return new CommandLine(line == null ? "" : line, true);
+    }
+
+    /**
+     * Scans text that is all arguments, as passed to a command's constructor.
+     *
+     * @param args Text after the verb; {@code null} is treated as empty.
+     * @return The scanned arguments, with an empty verb.
+     */
+    public static CommandLine ofArgs(String args) {
+        return new CommandLine(args == null ? "" : args, false);
+    }
+
+    /**
+     * Returns whether the line holds nothing but whitespace.
+     *
+     * @return {@code true} for a blank line.
+     */
+    public boolean isBlank() {
+        return verbStart == end;
+    }
+
+    /**
+     * Returns the first word.
+     *
+     * @return The verb, or an empty string for a blank line or bare arguments.
+     */
+    public String verb() {
+        return text.substring(verbStart, verbEnd);
+    }
+
+    /**
+     * Returns everything after the verb, trimmed.
+     *
+     * @return The arguments; empty if there are none.
+     */
+    public String args() {
+        return text.substring(argsStart, end);
+    }
+
+    /**
+     * Returns the offset at which the arguments start.
+     *
+     * @return Offset into the line.
+     */
+    public int argsStart() {
+        return argsStart;
+    }
+
+    /**
+     * Returns the offset just past the last non-whitespace character.
+     *
+     * @return Offset into the line.
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Returns the offset of the first {@code /by} in the arguments.
+     *
+     * @return Offset into the line, or -1 if there is none.
+     */
+    public int byAt() {
+        return by;
+    }
+
+    /**
+     * Returns the offset of the first {@code /from} in the arguments.
+     *
+     * @return Offset into the line, or -1 if there is none.
+     */
+    public int fromAt() {
+        return from;
+    }
+
+    /**
+     * Returns the offset of the first {@code /to} after {@code /from}.
+     *
+     * @return Offset into the line, or -1 if there is none.
+     */
+    public int toAt() {
+        return to;
+    }
+
+    /**
+     * Returns the text between two offsets with surrounding whitespace removed.
+     *
+     * @param start Offset of the first character.
+     * @param stop  Offset just past the last character.
+     * @return The trimmed text; empty if there is none.
+     */
+    public String between(int start, int stop) {
+        int s = start;
+        int e = stop;
+        while (s < e && isSpace(text.charAt(s))) {
+            s++;
+        }
+        while (e > s && isSpace(text.charAt(e - 1))) {
+            e--;
+        }
+        return text.substring(s, e);
+    }
+
+    /**
+     * Splits text into words at runs of whitespace, like {@code text.trim().split("\\s+")}
+     * without compiling a regex.
+     *
+     * @param text Text to split.
+     * @return Words in order; empty if the text is blank.
+     */
+    public static String[] words(String text) {
+        String[] out = new String[4];
+        int count = 0;
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            while (i < n && isSpace(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < n && !isSpace(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                if (count == out.length) {
+                    out = Arrays.copyOf(out, count * 2);
+                }
+                out[count++] = text.substring(start, i);
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+}
@@ -0,0 +1,17 @@
+package pip.logic;
+
+import pip.app.PipException;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/** Closes the open batch and saves all of its changes with a single write. */
+public class CommitBatch extends Command {
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
+        storage.commitBatch(tasks.asList());
+        tasks.releaseCheckpoint();
+        ui.show("Batch committed." + MSG_COUNT_PREFIX + tasks.size() + MSG_COUNT_SUFFIX);
+    }
+}
@@ -1,20 +1,28 @@
 package pip.logic;
 
+import java.text.Format;
+import java.text.ParsePosition;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
-import java.time.format.DateTimeParseException;
 import java.time.format.ResolverStyle;
-import java.time.temporal.TemporalAccessor;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import pip.app.PipException;
 
 /**
  * Parses and formats date/time strings for Pip.
  * Supports ISO formats and common d/M/yyyy or d-M-yyyy variants.
+ * <p>
+ * All formatters are built once. A cheap look at the input's shape picks the pattern to
+ * try first, and parsing goes through {@link Format#parseObject(String, ParsePosition)},
+ * which reports failure by returning {@code null} instead of throwing. Recently parsed
+ * strings are kept in a small LRU cache.
  */
 public class DateTimeParser {
 
@@ -26,6 +34,38 @@ public class DateTimeParser {
         "d-M-yyyy HHmm", "d-M-yyyy H:mm", "d-M-yyyy h:mma", "d-M-yyyy ha", "d-M-yyyy"
     };
 
+    /** Offsets within each half of {@link #PATTERNS}, one per time shape. */
+    private static final int SHAPE_HHMM = 0;
+    private static final int SHAPE_H_COLON_MM = 1;
+    private static final int SHAPE_H_COLON_MM_AMPM = 2;
+    private static final int SHAPE_H_AMPM = 3;
+    private static final int SHAPE_DATE_ONLY = 4;
+    private static final int SLASH_BASE = 0;
+    private static final int DASH_BASE = 5;
+
+    private static final Format[] PATTERN_FORMATS = new Format[PATTERNS.length];
+    private static final Format ISO_DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME.toFormat(LocalDateTime::from);
+    private static final Format ISO_DATE = DateTimeFormatter.ISO_LOCAL_DATE.toFormat(LocalDate::from);
+
+    private static final DateTimeFormatter DATE_ONLY_OUTPUT = DateTimeFormatter.ofPattern("MMM d yyyy");
+    private static final DateTimeFormatter DATE_TIME_OUTPUT = DateTimeFormatter.ofPattern("MMM d yyyy, h:mm a");
+
+    private static final int CACHE_SIZE = 1024;
+    private static final Map<String, LocalDateTime> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LocalDateTime> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    static {
+        for (int i = 0; i < PATTERNS.length; i++) {
+            DateTimeFormatter f = formatter(PATTERNS[i]);
+            PATTERN_FORMATS[i] = isDateOnly(i) ? f.toFormat(LocalDate::from) : f.toFormat(LocalDateTime::from);
+        }
+    }
+
     /**
      * Parses a variety of date/time strings into a LocalDateTime.
      *
@@ -34,22 +74,37 @@ public class DateTimeParser {
      * @throws PipException if no supported pattern matches
      */
     public static LocalDateTime parseDateTimeFlexible(String s) throws PipException {
-        String input = s == null ? "" : s.trim();
-        if (input.isEmpty()) {
+        LocalDateTime dt = tryParseDateTime(s);
+        if (dt == null) {
             throw new PipException(INVALID_HINT);
         }
+        return dt;
+    }
 
-        LocalDateTime dt = tryParseIso(input);
-        if (dt != null) {
-            return dt;
+    /**
+     * Parses like {@link #parseDateTimeFlexible(String)}, but reports failure by returning
+     * {@code null}, for callers that fall back to something else.
+     *
+     * @param s input string
+     * @return parsed LocalDateTime, or null if no supported pattern matches
+     */
+    public static LocalDateTime tryParseDateTime(String s) {
+        String input = s == null ? "" : s.trim();
+        if (input.isEmpty() || !Character.isDigit(input.charAt(0))) {
+            // Every supported format starts with a digit; free text such as "Mon 9am" never parses.
+            return null;
         }
 
-        dt = tryParseWithPatterns(input);
+        LocalDateTime dt = CACHE.get(input);
         if (dt != null) {
             return dt;
         }
 
-        throw new PipException(INVALID_HINT);
+        dt = parseUncached(input);
+        if (dt != null) {
+            CACHE.put(input, dt);
+        }
+        return dt;
     }
 
     /**
@@ -60,51 +115,132 @@ public class DateTimeParser {
      */
     public static String formatDateTimeSmart(LocalDateTime dt) {
         if (dt.toLocalTime().equals(LocalTime.MIDNIGHT)) {
-            return dt.format(DateTimeFormatter.ofPattern("MMM d yyyy"));
+            return dt.format(DATE_ONLY_OUTPUT);
+        }
+        return dt.format(DATE_TIME_OUTPUT);
+    }
+
+    /**
+     * Parses a trimmed, non-empty input without consulting the cache.
+     *
+     * @param input input string
+     * @return LocalDateTime or null if no supported format matches
+     */
+    static LocalDateTime parseUncached(String input) {
+        LocalDateTime dt = tryParseIso(input);
+        if (dt != null) {
+            return dt;
         }
-        return dt.format(DateTimeFormatter.ofPattern("MMM d yyyy, h:mm a"));
+        return tryParseWithPatterns(input);
     }
 
     /**
      * Attempts ISO parsing for both date-time and date-only inputs.
+     * Only inputs that can possibly be ISO are tried.
      *
      * @param input input string
      * @return LocalDateTime or null if not ISO
      */
     private static LocalDateTime tryParseIso(String input) {
-        try {
-            TemporalAccessor ta = DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                    .parseBest(input, LocalDateTime::from, LocalDate::from);
-            return (ta instanceof LocalDateTime)
-                    ? (LocalDateTime) ta
-                    : ((LocalDate) ta).atStartOfDay();
-        } catch (DateTimeParseException e) {
-            return null;
+        if (input.indexOf('T') >= 0 || input.indexOf('t') >= 0) {
+            LocalDateTime dt = tryParse(ISO_DATE_TIME, input, false);
+            if (dt != null) {
+                return dt;
+            }
         }
+        if (input.length() >= 5 && input.charAt(4) == '-' && Character.isDigit(input.charAt(0))) {
+            return tryParse(ISO_DATE, input, true);
+        }
+        return null;
     }
 
     /**
-     * Attempts parsing with supported non-ISO patterns.
+     * Attempts parsing with supported non-ISO patterns, starting with the one the input's
+     * shape points to and falling back to the rest in declaration order.
      *
      * @param input input string
      * @return LocalDateTime or null if none match
      */
     private static LocalDateTime tryParseWithPatterns(String input) {
-        DateTimeParseException last = null;
-        for (String p : PATTERNS) {
-            DateTimeFormatter f = formatter(p);
-            try {
-                TemporalAccessor ta = f.parseBest(input, LocalDateTime::from, LocalDate::from);
-                return (ta instanceof LocalDateTime)
-                        ? (LocalDateTime) ta
-                        : ((LocalDate) ta).atStartOfDay();
-            } catch (DateTimeParseException e) {
-                last = e;
+        int guess = classify(input);
+        if (guess >= 0) {
+            LocalDateTime dt = tryParse(PATTERN_FORMATS[guess], input, isDateOnly(guess));
+            if (dt != null) {
+                return dt;
+            }
+        }
+        for (int i = 0; i < PATTERN_FORMATS.length; i++) {
+            if (i == guess) {
+                continue;
+            }
+            LocalDateTime dt = tryParse(PATTERN_FORMATS[i], input, isDateOnly(i));
+            if (dt != null) {
+                return dt;
             }
         }
         return null;
     }
 
+    /**
+     * Picks the pattern matching the input's separators and time suffix.
+     *
+     * @param input input string
+     * @return index into {@link #PATTERNS}, or -1 if the date separator is unknown
+     */
+    private static int classify(String input) {
+        int space = input.indexOf(' ');
+        int dateEnd = space < 0 ? input.length() : space;
+        int base;
+        if (input.lastIndexOf('/', dateEnd - 1) >= 0) {
+            base = SLASH_BASE;
+        } else if (input.lastIndexOf('-', dateEnd - 1) >= 0) {
+            base = DASH_BASE;
+        } else {
+            return -1;
+        }
+        if (space < 0) {
+            return base + SHAPE_DATE_ONLY;
+        }
+
+        boolean hasColon = input.indexOf(':', space) >= 0;
+        boolean hasMeridiem = endsWithMeridiem(input);
+        if (hasColon) {
+            return base + (hasMeridiem ? SHAPE_H_COLON_MM_AMPM : SHAPE_H_COLON_MM);
+        }
+        return base + (hasMeridiem ? SHAPE_H_AMPM : SHAPE_HHMM);
+    }
+
+    private static boolean endsWithMeridiem(String input) {
+        int n = input.length();
+        if (n < 2) {
+            return false;
+        }
+        char m = Character.toLowerCase(input.charAt(n - 1));
+        char ap = Character.toLowerCase(input.charAt(n - 2));
+        return m == 'm' && (ap == 'a' || ap == 'p');
+    }
+
+    private static boolean isDateOnly(int patternIndex) {
+        return patternIndex % DASH_BASE == SHAPE_DATE_ONLY;
+    }
+
+    /**
+     * Parses the whole input with {@code format} without throwing.
+     *
+     * @param format     format returning a LocalDate or LocalDateTime
+     * @param input      input string
+     * @param isDateOnly whether {@code format} yields a LocalDate
+     * @return LocalDateTime or null if the input does not fully match
+     */
+    private static LocalDateTime tryParse(Format format, String input, boolean isDateOnly) {
+        ParsePosition pos = new ParsePosition(0);
+        Object parsed = format.parseObject(input, pos);
+        if (parsed == null || pos.getIndex() != input.length()) {
+            return null;
+        }
+        return isDateOnly ? ((LocalDate) parsed).atStartOfDay() : (LocalDateTime) parsed;
+    }
+
     /**
      * Builds a case-insensitive formatter with SMART resolver.
      *
@@ -1,13 +1,18 @@
 package pip.logic;
 
+import java.util.BitSet;
+import java.util.List;
+
 import pip.app.PipException;
+import pip.model.Edit;
 import pip.model.Task;
 import pip.model.TaskList;
 import pip.storage.Storage;
 import pip.ui.Ui;
 
 /**
- * Deletes a single task identified by a user-supplied index.
+ * Deletes the tasks picked by a user-supplied selection: one task number, numbers and ranges
+ * such as {@code 1,4,9-20}, or {@code done}. Several tasks are removed in one pass and saved once.
  * */
 public class DeleteTask extends Command {
     private final String args;
@@ -22,10 +27,20 @@ public class DeleteTask extends Command {
         if (tasks.size() == 0) {
             throw new PipException(MSG_EMPTY_LIST);
         }
-        int idx = Parser.parseIndex(args, tasks.size());
-        Task removed = tasks.remove(idx);
+        BitSet picked = Parser.parseSelection(args, tasks);
+        if (picked.cardinality() == 1) {
+            int idx = picked.nextSetBit(0);
+            Task removed = tasks.remove(idx);
+            tasks.getHistory().record(Edit.removed(picked, List.of(removed)));
+            storage.saveRemoved(tasks.asList(), idx);
+            ui.show("Noted. I've removed this task:\n  " + removed
+                    + MSG_COUNT_PREFIX + tasks.size() + MSG_COUNT_SUFFIX);
+            return;
+        }
+        List<Task> removed = tasks.removeAll(picked);
+        tasks.getHistory().record(Edit.removed(picked, removed));
         storage.save(tasks.asList());
-        ui.show("Noted. I've removed this task:\n  " + removed
+        ui.show("Noted. I've removed these " + removed.size() + " tasks:" + describeTasks(removed)
                 + MSG_COUNT_PREFIX + tasks.size() + MSG_COUNT_SUFFIX);
     }
 }
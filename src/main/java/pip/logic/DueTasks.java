@@ -0,0 +1,105 @@
+package pip.logic;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import pip.app.PipException;
+import pip.model.Deadline;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/**
+ * Lists deadlines by due date: {@code due before <date>}, {@code due between <date> <date>}
+ * or {@code overdue}. Results come soonest first and keep their numbers from the full list,
+ * so they can be marked or deleted directly.
+ */
+public class DueTasks extends Command {
+    private static final String USAGE = "Usage: due before <date>, due between <date> <date>, or overdue";
+
+    private final String args;
+    private final Clock clock;
+
+    /**
+     * Constructs a {@code DueTasks} command that reads the current time from the system clock.
+     *
+     * @param args Text after {@code due}, or {@code "overdue"}.
+     */
+    public DueTasks(String args) {
+        this(args, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a {@code DueTasks} command.
+     *
+     * @param args  Text after {@code due}, or {@code "overdue"}.
+     * @param clock Source of the current time for {@code overdue}.
+     */
+    public DueTasks(String args, Clock clock) {
+        this.args = args == null ? "" : args.trim();
+        this.clock = clock;
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        CommandLine line = CommandLine.parse(args);
+        String kind = line.verb();
+        String rest = line.args();
+        List<Deadline> due;
+        String header;
+        if (kind.equals("overdue") && rest.isEmpty()) {
+            due = new ArrayList<>(tasks.dueBetween(null, LocalDateTime.now(clock)));
+            due.removeIf(Deadline::isDone);
+            header = "These deadlines have passed:";
+        } else if (kind.equals("before") && !rest.isEmpty()) {
+            due = tasks.dueBetween(null, DateTimeParser.parseDateTimeFlexible(rest));
+            header = "Here are the deadlines due before " + rest + ":";
+        } else if (kind.equals("between") && !rest.isEmpty()) {
+            LocalDateTime[] range = parseRange(rest);
+            due = tasks.dueBetween(range[0], endOf(range[1]));
+            header = "Here are the deadlines due between those dates:";
+        } else {
+            throw new PipException(USAGE);
+        }
+
+        if (due.isEmpty()) {
+            ui.show("No deadlines found :))");
+            return;
+        }
+        StringBuilder sb = new StringBuilder(header);
+        for (Deadline d : due) {
+            sb.append('\n').append(tasks.indexOf(d.getId()) + 1).append(". ").append(d);
+        }
+        ui.show(sb.toString());
+    }
+
+    /**
+     * Splits {@code text} into two dates. Dates may contain spaces, so every split between
+     * words is tried until both halves parse.
+     */
+    private static LocalDateTime[] parseRange(String text) throws PipException {
+        String[] words = CommandLine.words(text);
+        for (int split = 1; split < words.length; split++) {
+            LocalDateTime start = DateTimeParser.tryParseDateTime(String.join(" ", List.of(words).subList(0, split)));
+            LocalDateTime end = start == null ? null
+                    : DateTimeParser.tryParseDateTime(String.join(" ", List.of(words).subList(split, words.length)));
+            if (end != null) {
+                return new LocalDateTime[] {start, end};
+            }
+        }
+        throw new PipException(USAGE);
+    }
+
+    /** Exclusive upper bound for a range ending at {@code end}; a date without a time covers that whole day. */
+    private static LocalDateTime endOf(LocalDateTime end) {
+        return end.toLocalTime().equals(LocalTime.MIDNIGHT) ? end.plusDays(1) : end.plusNanos(1);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -1,15 +1,22 @@
 package pip.logic;
 
+import pip.app.PipException;
 import pip.model.TaskList;
 import pip.storage.Storage;
 import pip.ui.Ui;
 
 /**
  * Exits the application after displaying a farewell message.
+ * Any changes still queued for the disk are written before returning.
  */
 public class ExitApp extends Command {
     @Override
-    public void execute(TaskList tasks, Ui ui, Storage storage) {
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        if (storage.isBatching()) {
+            storage.abortBatch();
+            ui.show("Discarded the uncommitted batch.");
+        }
+        storage.flush();
         ui.show("Bye. Hope to see you again soon!");
     }
 
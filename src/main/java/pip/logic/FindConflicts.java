@@ -0,0 +1,49 @@
+package pip.logic;
+
+import java.util.List;
+
+import pip.app.PipException;
+import pip.model.Event;
+import pip.model.Task;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/**
+ * Lists the events whose times overlap the event at a user-supplied index, {@code conflicts <n>}.
+ */
+public class FindConflicts extends Command {
+    private final String args;
+
+    public FindConflicts(String args) {
+        this.args = args;
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        if (tasks.size() == 0) {
+            throw new PipException(MSG_EMPTY_LIST);
+        }
+        int idx = Parser.parseIndex(args, tasks.size());
+        Task t = tasks.get(idx);
+        if (!(t instanceof Event) || ((Event) t).getStart() == null) {
+            throw new PipException("Task " + (idx + 1) + " is not an event with dates, so it cannot conflict.");
+        }
+
+        List<Event> conflicts = tasks.conflictsWith((Event) t);
+        if (conflicts.isEmpty()) {
+            ui.show("No conflicts with:\n  " + t);
+            return;
+        }
+        StringBuilder sb = new StringBuilder("These events overlap with:\n  " + t);
+        for (Event e : conflicts) {
+            sb.append('\n').append(tasks.indexOf(e.getId()) + 1).append(". ").append(e);
+        }
+        ui.show(sb.toString());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -26,7 +26,8 @@ public class FindTasks extends Command {
 
     /**
      * Searches the {@link TaskList} for tasks matching all provided terms (split on whitespace),
-     * then displays the results or a "no matches" message.
+     * then displays the results or a "no matches" message. Only the candidates returned by
+     * {@link TaskList#findCandidates(String[])} are checked.
      *
      * @param tasks   the task list to search; must not be {@code null}
      * @param ui      the UI facade for presenting results; must not be {@code null}
@@ -39,12 +40,12 @@ public class FindTasks extends Command {
             throw new PipException("Usage: find <keyword>");
         }
 
-        String[] kw = keyword.toLowerCase().split("\\s+");
-        var all = tasks.asList();
+        String[] kw = CommandLine.words(keyword.toLowerCase());
+        var candidates = tasks.findCandidates(kw);
 
         StringBuilder sb = new StringBuilder("Here are the matching tasks in your list:\n");
         int count = 0;
-        for (Task t : all) {
+        for (Task t : candidates) {
             String desc = t.getDescription().toLowerCase();
             if (matchesAll(desc, kw)) {
                 count++;
@@ -59,6 +60,11 @@ public class FindTasks extends Command {
         }
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     /**
      * Returns {@code true} if the description matches <em>all</em> terms.
      *
@@ -107,7 +113,7 @@ public class FindTasks extends Command {
         }
         for (int i = 0; i <= hay.length() - Math.max(1, n - 1); i++) {
             int end = Math.min(hay.length(), i + n + 1); // allow one extra char window
-            if (editDistanceAtMostOne(hay.substring(i, end), needle)) {
+            if (editDistanceAtMostOne(hay, i, end, needle)) {
                 return true;
             }
         }
@@ -115,11 +121,12 @@ public class FindTasks extends Command {
     }
 
     /**
-     * Returns {@code true} if the Levenshtein edit distance between {@code a} and {@code b} is ≤ 1.
-     * Permits at most one insertion, deletion, or substitution.
+     * Returns {@code true} if the Levenshtein edit distance between {@code a[from, to)} and {@code b} is ≤ 1.
+     * Permits at most one insertion, deletion, or substitution. Works on the window in place
+     * rather than on a substring copy.
      */
-    private static boolean editDistanceAtMostOne(String a, String b) {
-        int la = a.length();
+    private static boolean editDistanceAtMostOne(String a, int from, int to, String b) {
+        int la = to - from;
         int lb = b.length();
         if (Math.abs(la - lb) > 1) {
             return false;
@@ -128,7 +135,7 @@ public class FindTasks extends Command {
         int j = 0;
         int edits = 0;
         while (i < la && j < lb) {
-            if (a.charAt(i) == b.charAt(j)) {
+            if (a.charAt(from + i) == b.charAt(j)) {
                 i++;
                 j++;
                 continue;
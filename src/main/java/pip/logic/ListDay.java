@@ -0,0 +1,58 @@
+package pip.logic;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import pip.app.PipException;
+import pip.model.Deadline;
+import pip.model.Event;
+import pip.model.Task;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/**
+ * Shows what is on a given day, {@code on <date>}: events that overlap it and deadlines due
+ * that day, merged in time order. Each task keeps its number from the full list.
+ */
+public class ListDay extends Command {
+    private final String args;
+
+    public ListDay(String args) {
+        this.args = args == null ? "" : args.trim();
+    }
+
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        if (args.isEmpty()) {
+            throw new PipException("Usage: on <date>");
+        }
+        LocalDate day = DateTimeParser.parseDateTimeFlexible(args).toLocalDate();
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        List<Event> events = tasks.eventsBetween(from, to);
+        List<Deadline> deadlines = tasks.dueBetween(from, to);
+        String date = DateTimeParser.formatDateTimeSmart(from);
+        if (events.isEmpty() && deadlines.isEmpty()) {
+            ui.show("Nothing on " + date + " :))");
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder("Here is what's on " + date + ":");
+        int e = 0;
+        int d = 0;
+        while (e < events.size() || d < deadlines.size()) {
+            boolean isEventNext = d == deadlines.size()
+                    || (e < events.size() && !events.get(e).getStart().isAfter(deadlines.get(d).getBy()));
+            Task next = isEventNext ? events.get(e++) : deadlines.get(d++);
+            sb.append('\n').append(tasks.indexOf(next.getId()) + 1).append(". ").append(next);
+        }
+        ui.show(sb.toString());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -1,15 +1,107 @@
 package pip.logic;
 
+import pip.app.PipException;
 import pip.model.TaskList;
 import pip.storage.Storage;
 import pip.ui.Ui;
 
 /**
- * Displays the current task list to the user.
+ * Displays the current task list to the user, either whole or one page at a time.
  * */
 public class ListTasks extends Command {
+    /** Tasks per page when a page is asked for without {@code --page-size}. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String PAGE_SIZE_FLAG = "--page-size";
+    private static final String USAGE = "Usage: list [<page>] [--page-size <n>]";
+    /** Shared by every plain {@code list}; commands keep no state between runs. */
+    private static final ListTasks WHOLE_LIST = new ListTasks();
+
+    /** Page to show, counting from 1; 0 to show the whole list. */
+    private final int page;
+    private final int pageSize;
+
+    /** Shows the whole list. */
+    public ListTasks() {
+        this(0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Shows a single page of the list.
+     *
+     * @param page     Page number, counting from 1.
+     * @param pageSize Tasks per page.
+     */
+    public ListTasks(int page, int pageSize) {
+        assert page >= 0 && pageSize > 0 : "page must not be negative and page size must be positive";
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Builds the command for {@code list} followed by {@code args}: nothing for the whole list,
+     * or a page number and/or {@code --page-size <n>} for one page.
+     *
+     * @param args Text after {@code list}.
+     * @return Command showing the requested part of the list.
+     * @throws PipException If the page number or size is not a positive number.
+     */
+    public static ListTasks parse(String args) throws PipException {
+        String trimmed = args == null ? "" : args.trim();
+        if (trimmed.isEmpty()) {
+            return WHOLE_LIST;
+        }
+
+        int page = 1;
+        int pageSize = DEFAULT_PAGE_SIZE;
+        String[] words = CommandLine.words(trimmed);
+        boolean hasPage = false;
+        for (int i = 0; i < words.length; i++) {
+            if (words[i].equals(PAGE_SIZE_FLAG) && i + 1 < words.length) {
+                pageSize = parsePositive(words[++i]);
+            } else if (!hasPage) {
+                page = parsePositive(words[i]);
+                hasPage = true;
+            } else {
+                throw new PipException(USAGE);
+            }
+        }
+        return new ListTasks(page, pageSize);
+    }
+
+    private static int parsePositive(String word) throws PipException {
+        try {
+            int n = Integer.parseInt(word);
+            if (n > 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below together with zero and negative numbers.
+        }
+        throw new PipException(USAGE);
+    }
+
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) {
-        ui.show(tasks.render());
+        int size = tasks.size();
+        if (page == 0 || size == 0) {
+            ui.showTaskList(tasks);
+            return;
+        }
+
+        int pages = (size + pageSize - 1) / pageSize;
+        if (page > pages) {
+            ui.show("There is no page " + page + "; the list has " + pages
+                    + (pages == 1 ? " page." : " pages."));
+            return;
+        }
+        int from = (page - 1) * pageSize;
+        int to = Math.min(size, from + pageSize);
+        ui.showTaskPage(tasks, from, to);
+        ui.show("Page " + page + " of " + pages + " (tasks " + (from + 1) + "-" + to + " of " + size + ").");
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 }
@@ -1,12 +1,77 @@
 package pip.logic;
 
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import pip.app.PipException;
+import pip.model.Task;
+import pip.model.TaskList;
 
 /**
  * Parses raw user input into executable Command objects.
  * Throws PipException for empty input or unknown commands.
+ * <p>
+ * Each line is scanned once by {@link CommandLine}; its verb picks a {@link CommandFactory}
+ * from a dispatch table. The built-in commands are registered here, and plugins can add more
+ * with {@link #register(String, CommandFactory)}. Commands without arguments are shared
+ * instances rather than being created for every line.
  */
 public class Parser {
+    /** Selection naming every task that is done, as in {@code delete done}. */
+    static final String SELECT_DONE = "done";
+
+    /** Verb to factory, in the order shown by the help text; replaced whole on registration. */
+    private static volatile Map<String, CommandFactory> commands = builtIns();
+
+    private static Map<String, CommandFactory> builtIns() {
+        Command begin = new BeginBatch();
+        Command commit = new CommitBatch();
+        Command rollback = new RollbackBatch();
+        Command undo = new UndoChange();
+        Command redo = new RedoChange();
+        Command stats = new ShowStats();
+        Command exit = new ExitApp();
+
+        Map<String, CommandFactory> m = new LinkedHashMap<>();
+        m.put("list", line -> ListTasks.parse(line.args()));
+        m.put("find", line -> new FindTasks(line.args()));
+        m.put("due", line -> new DueTasks(line.args()));
+        m.put("overdue", line -> new DueTasks("overdue " + line.args()));
+        m.put("on", line -> new ListDay(line.args()));
+        m.put("conflicts", line -> new FindConflicts(line.args()));
+        m.put("mark", line -> new MarkTask(line.args()));
+        m.put("unmark", line -> new UnmarkTask(line.args()));
+        m.put("delete", line -> new DeleteTask(line.args()));
+        m.put("todo", line -> new AddTodo(line.args()));
+        m.put("deadline", AddDeadline::new);
+        m.put("event", AddEvent::new);
+        m.put("undo", line -> undo);
+        m.put("redo", line -> redo);
+        m.put("begin", line -> begin);
+        m.put("commit", line -> commit);
+        m.put("rollback", line -> rollback);
+        m.put("stats", line -> stats);
+        m.put("bye", line -> exit);
+        return Collections.unmodifiableMap(m);
+    }
+
+    /**
+     * Adds a command, or replaces the one with the same verb. Lines parsed afterwards, on
+     * any thread, dispatch to it.
+     *
+     * @param verb    First word of the lines the command handles.
+     * @param factory Builds the command from a scanned line.
+     */
+    public static synchronized void register(String verb, CommandFactory factory) {
+        assert verb != null && CommandLine.words(verb).length == 1 : "verb must be one word";
+        assert factory != null : "factory must not be null";
+        Map<String, CommandFactory> next = new LinkedHashMap<>(commands);
+        next.put(verb, factory);
+        commands = Collections.unmodifiableMap(next);
+    }
+
     /**
      * Parses a raw command line into a concrete Command.
      *
@@ -15,43 +80,79 @@ public class Parser {
      * @throws PipException If the input is empty or the command is unknown.
      */
     public static Command parse(String fullCommand) throws PipException {
-        String trimmed = fullCommand == null ? "" : fullCommand.trim();
-        if (trimmed.isEmpty()) {
+        CommandLine line = CommandLine.parse(fullCommand);
+        if (line.isBlank()) {
             throw new PipException("Please type a command!");
         }
-
-        String[] parts = trimmed.split("\\s+", 2);
-        String cmd = parts[0];
-        String args = parts.length > 1 ? parts[1] : "";
-
-        return switch (cmd) {
-        case "bye" -> new ExitApp();
-        case "list" -> new ListTasks();
-        case "mark" -> new MarkTask(args);
-        case "unmark" -> new UnmarkTask(args);
-        case "delete" -> new DeleteTask(args);
-        case "todo" -> new AddTodo(args);
-        case "deadline" -> new AddDeadline(args);
-        case "event" -> new AddEvent(args);
-        case "find" -> new FindTasks(args);
-        default -> throw new PipException("I'm not sure what that means. Sorry! \n(Try: list, find, mark, "
-                + "unmark, delete, todo, deadline, event, bye.)");
-        };
+        Map<String, CommandFactory> table = commands;
+        CommandFactory factory = table.get(line.verb());
+        if (factory == null) {
+            throw new PipException("I'm not sure what that means. Sorry! \n(Try: "
+                    + String.join(", ", table.keySet()) + ".)");
+        }
+        return factory.create(line);
     }
 
     static int parseIndex(String s, int size) throws PipException {
+        return toIndex(parseNumber(s, size), size);
+    }
+
+    /** Reads a task number as typed, without checking that the list has that many tasks. */
+    private static int parseNumber(String s, int size) throws PipException {
         String t = s == null ? "" : s.trim();
-        if (t.isEmpty()) {
-            throw new PipException("Please provide a valid task number between 1 and " + size + ".");
-        }
         try {
-            int idx = Integer.parseInt(t);
-            if (idx < 1 || idx > size) {
-                throw new PipException("Please provide a valid task number between 1 and " + size + ".");
-            }
-            return idx - 1;
+            return Integer.parseInt(t);
         } catch (NumberFormatException e) {
             throw new PipException("Please provide a valid task number between 1 and " + size + ".");
         }
     }
+
+    private static int toIndex(int number, int size) throws PipException {
+        if (number < 1 || number > size) {
+            throw new PipException("Please provide a valid task number between 1 and " + size + ".");
+        }
+        return number - 1;
+    }
+
+    /**
+     * Parses a selection of tasks: {@code done}, or task numbers and ranges separated by
+     * commas, such as {@code 3}, {@code 3-500} or {@code 1,4,9-20}.
+     *
+     * @param s     Selection typed by the user.
+     * @param tasks List the task numbers refer to.
+     * @return Zero-based positions of the selected tasks; never empty.
+     * @throws PipException If a number is out of range, a range is reversed, or nothing is done.
+     */
+    static BitSet parseSelection(String s, TaskList tasks) throws PipException {
+        String t = s == null ? "" : s.trim();
+        int size = tasks.size();
+        BitSet picked = new BitSet(size);
+        if (SELECT_DONE.equals(t)) {
+            int i = 0;
+            for (Task task : tasks.snapshot()) {
+                if (task.isDone()) {
+                    picked.set(i);
+                }
+                i++;
+            }
+            if (picked.isEmpty()) {
+                throw new PipException("None of your tasks are done yet.");
+            }
+            return picked;
+        }
+        for (String part : t.split(",", -1)) {
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                picked.set(parseIndex(part, size));
+                continue;
+            }
+            int from = parseNumber(part.substring(0, dash), size);
+            int to = parseNumber(part.substring(dash + 1), size);
+            if (from > to) {
+                throw new PipException("Please write ranges from low to high, e.g. " + to + "-" + from + ".");
+            }
+            picked.set(toIndex(from, size), toIndex(to, size) + 1);
+        }
+        return picked;
+    }
 }
@@ -0,0 +1,24 @@
+package pip.logic;
+
+import pip.app.PipException;
+import pip.model.Edit;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/** Applies again the change most recently reversed by {@code undo}, and saves the result. */
+public class RedoChange extends Command {
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
+        if (storage.isBatching()) {
+            throw new PipException("Please commit or roll back the batch before using redo.");
+        }
+        Edit redone = tasks.getHistory().redo(tasks);
+        if (redone == null) {
+            throw new PipException("There is nothing to redo.");
+        }
+        saveReplayed(redone, false, tasks, storage);
+        ui.show("Redone: " + redone.describe() + "." + MSG_COUNT_PREFIX + tasks.size() + MSG_COUNT_SUFFIX);
+    }
+}
@@ -0,0 +1,38 @@
+package pip.logic;
+
+import pip.app.PipException;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/** Discards every change made since the open batch began. */
+public class RollbackBatch extends Command {
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
+        if (!storage.isBatching()) {
+            throw new PipException("There is no open batch to roll back.");
+        }
+        abort(tasks, storage);
+        ui.show("Batch rolled back. Nothing was saved.");
+    }
+
+    /**
+     * Undoes the open batch, if any, after a command inside it failed.
+     *
+     * @param tasks   the task list to restore
+     * @param ui      where to report the rollback
+     * @param storage the storage holding the batch
+     */
+    public static void abortOnError(TaskList tasks, Ui ui, Storage storage) {
+        if (storage.isBatching()) {
+            abort(tasks, storage);
+            ui.showError("The batch was rolled back; none of its changes were saved.");
+        }
+    }
+
+    private static void abort(TaskList tasks, Storage storage) {
+        tasks.rollback();
+        storage.abortBatch();
+    }
+}
@@ -0,0 +1,23 @@
+package pip.logic;
+
+import pip.metrics.Metrics;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/**
+ * Shows how many times each command has run since Pip started and how long it took,
+ * along with load and save times and the sizes of the list and the save file.
+ */
+public class ShowStats extends Command {
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        Metrics.get().recordTaskCount(tasks.size());
+        ui.show(Metrics.get().report());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
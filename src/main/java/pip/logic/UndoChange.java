@@ -0,0 +1,28 @@
+package pip.logic;
+
+import pip.app.PipException;
+import pip.model.Edit;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+/**
+ * Reverses the most recent change to the list that is still in its history, and saves the
+ * result. Only the change itself is replayed, and a change to one task is saved as such, so
+ * undoing it is as quick on a huge list as on a short one.
+ */
+public class UndoChange extends Command {
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
+        assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
+        if (storage.isBatching()) {
+            throw new PipException("Please commit or roll back the batch before using undo.");
+        }
+        Edit undone = tasks.getHistory().undo(tasks);
+        if (undone == null) {
+            throw new PipException("There is nothing to undo.");
+        }
+        saveReplayed(undone, true, tasks, storage);
+        ui.show("Undone: " + undone.describe() + "." + MSG_COUNT_PREFIX + tasks.size() + MSG_COUNT_SUFFIX);
+    }
+}
@@ -1,13 +1,18 @@
 package pip.logic;
 
+import java.util.BitSet;
+import java.util.List;
+
 import pip.app.PipException;
+import pip.model.Edit;
 import pip.model.Task;
 import pip.model.TaskList;
 import pip.storage.Storage;
 import pip.ui.Ui;
 
 /**
- * Marks a single task as not completed, identified by a user-supplied index.
+ * Marks tasks as not completed, picked by a user-supplied selection: one task number, numbers and
+ * ranges such as {@code 1,4,9-20}, or {@code done}. Several tasks are changed together and saved once.
  * */
 public class UnmarkTask extends Command {
     private final String args;
@@ -19,10 +24,23 @@ public class UnmarkTask extends Command {
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws PipException {
         assert tasks != null && ui != null && storage != null : "tasks, ui, and storage must be set";
-        int idx = Parser.parseIndex(args, tasks.size());
-        Task t = tasks.get(idx);
-        t.unmark();
+        BitSet picked = Parser.parseSelection(args, tasks);
+        BitSet flipped = toBeFlipped(tasks, picked, false);
+        if (picked.cardinality() == 1) {
+            int idx = picked.nextSetBit(0);
+            Task t = tasks.setDone(idx, false);
+            if (!flipped.isEmpty()) {
+                tasks.getHistory().record(Edit.doneChanged(flipped, false, List.of(t)));
+            }
+            storage.saveUpdated(tasks.asList(), idx);
+            ui.show("OK, I've marked this task as not done yet:\n  " + t);
+            return;
+        }
+        List<Task> changed = tasks.setDone(picked, false);
+        if (!flipped.isEmpty()) {
+            tasks.getHistory().record(Edit.doneChanged(flipped, false, changed));
+        }
         storage.save(tasks.asList());
-        ui.show("OK, I've marked this task as not done yet:\n  " + t);
+        ui.show("OK, I've marked these " + changed.size() + " tasks as not done yet:" + describeTasks(changed));
     }
 }
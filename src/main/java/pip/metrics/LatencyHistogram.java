@@ -0,0 +1,117 @@
+package pip.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds with bounded relative error, in the style of
+ * HdrHistogram. Values below 32 ns have a bucket each; above that, every power of two is cut into
+ * 32 equal buckets, so a reported value is within about 3% of the true one. The whole range of
+ * {@code long} fits in under 2,000 buckets.
+ * <p>
+ * Recording is lock-free: one atomic increment of a bucket and a compare-and-set only when a new
+ * maximum is seen. Reads walk the buckets without stopping writers, so a read taken during
+ * recording may miss the latest few values but never sees a torn one.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos Duration in nanoseconds; negative values count as zero.
+     */
+    public void record(long nanos) {
+        long v = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(v));
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}.
+     *
+     * @param startNanos A reading of {@link System#nanoTime()} taken when the work began.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return Count of values.
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return Maximum in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value below which the given share of recorded values fall.
+     *
+     * @param percentile From 0 to 100.
+     * @return The highest value in the bucket holding that rank, capped at {@link #max()};
+     *         0 if nothing was recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), max());
+            }
+        }
+        return max();
+    }
+
+    /** Index of the bucket holding {@code v}, which must not be negative. */
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(v);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (v >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Largest value that falls in bucket {@code i}. */
+    static long highestValueAt(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int shift = i / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + i % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
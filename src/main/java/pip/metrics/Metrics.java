@@ -0,0 +1,286 @@
+package pip.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the running process: how often each command type ran,
+ * how long it took and how often it failed, how long the save file took to load and save, and
+ * the latest task-list size and save-file size. One instance, {@link #get()}, is shared by
+ * every window, session and thread.
+ * <p>
+ * Recording never takes a lock, so it is cheap enough to do on every command. The numbers can
+ * be read as a table with the {@code stats} command, or written every few seconds to a file in
+ * the Prometheus text format by starting Pip with {@code -Dpip.metrics.file=<path>}.
+ */
+public final class Metrics {
+    /** System property naming the file the metrics are written to periodically. */
+    public static final String FILE_PROPERTY = "pip.metrics.file";
+    /** System property giving the seconds between writes of {@link #FILE_PROPERTY}. */
+    public static final String INTERVAL_PROPERTY = "pip.metrics.interval";
+    /** Storage operation timed by {@code Storage.loadTaskList}. */
+    public static final String OP_LOAD = "load";
+    /** Storage operation timed for every whole-file save. */
+    public static final String OP_SAVE = "save";
+    /** Storage operation timed for every record appended to a journal. */
+    public static final String OP_APPEND = "append";
+
+    private static final long DEFAULT_INTERVAL_SECONDS = 10;
+    private static final Metrics GLOBAL = new Metrics();
+
+    private final Map<String, LatencyHistogram> commands = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> storage = new ConcurrentHashMap<>();
+    private volatile long taskCount = -1;
+    private volatile long saveFileBytes = -1;
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Returns the metrics shared by the whole process.
+     *
+     * @return The process-wide instance.
+     */
+    public static Metrics get() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records one run of a command.
+     *
+     * @param type  Command type, such as {@code MarkTask}.
+     * @param nanos How long it ran.
+     * @param isOk  {@code false} if it ended with an error.
+     */
+    public void recordCommand(String type, long nanos, boolean isOk) {
+        histogram(commands, type).record(nanos);
+        if (!isOk) {
+            failures.computeIfAbsent(type, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Records one storage operation.
+     *
+     * @param op    One of {@link #OP_LOAD}, {@link #OP_SAVE} or {@link #OP_APPEND}.
+     * @param nanos How long it took.
+     */
+    public void recordStorage(String op, long nanos) {
+        histogram(storage, op).record(nanos);
+    }
+
+    /**
+     * Records the number of tasks in the list.
+     *
+     * @param count Tasks in the list after the latest command.
+     */
+    public void recordTaskCount(long count) {
+        taskCount = count;
+    }
+
+    /**
+     * Records the size of the save file.
+     *
+     * @param bytes File size after the latest load or save.
+     */
+    public void recordSaveFileBytes(long bytes) {
+        saveFileBytes = bytes;
+    }
+
+    /**
+     * Returns the latency histogram of a command type.
+     *
+     * @param type Command type, such as {@code MarkTask}.
+     * @return Its histogram; empty if the type has not run.
+     */
+    public LatencyHistogram command(String type) {
+        return histogram(commands, type);
+    }
+
+    /**
+     * Returns the latency histogram of a storage operation.
+     *
+     * @param op One of {@link #OP_LOAD}, {@link #OP_SAVE} or {@link #OP_APPEND}.
+     * @return Its histogram; empty if the operation has not happened.
+     */
+    public LatencyHistogram storage(String op) {
+        return histogram(storage, op);
+    }
+
+    /**
+     * Returns how many runs of a command type ended with an error.
+     *
+     * @param type Command type, such as {@code MarkTask}.
+     * @return Number of failed runs.
+     */
+    public long failures(String type) {
+        LongAdder n = failures.get(type);
+        return n == null ? 0 : n.sum();
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> map, String key) {
+        LatencyHistogram h = map.get(key);
+        return h != null ? h : map.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Formats the metrics as a table for the {@code stats} command.
+     *
+     * @return One line per command type and storage operation that has run, sorted by name.
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder("Here's how Pip has been doing since it started:\n");
+        sb.append("Tasks: ").append(taskCount < 0 ? "-" : String.valueOf(taskCount))
+                .append(", save file: ").append(saveFileBytes < 0 ? "-" : formatBytes(saveFileBytes)).append('\n');
+        sb.append(String.format("%-14s %7s %7s %9s %9s %9s%n", "", "count", "errors", "p50", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(commands).entrySet()) {
+            appendRow(sb, e.getKey(), e.getValue(), String.valueOf(failures(e.getKey())));
+        }
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(storage).entrySet()) {
+            appendRow(sb, "storage " + e.getKey(), e.getValue(), "");
+        }
+        return sb.toString().stripTrailing();
+    }
+
+    private static void appendRow(StringBuilder sb, String name, LatencyHistogram h, String errors) {
+        long count = h.count();
+        if (count == 0) {
+            return;
+        }
+        sb.append(String.format("%-14s %7d %7s %9s %9s %9s%n", name, count, errors,
+                formatNanos(h.valueAtPercentile(50)), formatNanos(h.valueAtPercentile(99)),
+                formatNanos(h.max())));
+    }
+
+    /**
+     * Formats the metrics in the Prometheus text exposition format, as read by a
+     * node_exporter textfile collector or any scraper pointed at the dump file.
+     *
+     * @return The metrics, one sample per line.
+     */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE pip_command_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(commands).entrySet()) {
+            appendSummary(sb, "pip_command_seconds", "command", e.getKey(), e.getValue());
+        }
+        sb.append("# TYPE pip_command_failures_total counter\n");
+        for (String type : new TreeMap<>(commands).keySet()) {
+            sb.append("pip_command_failures_total{command=\"").append(type).append("\"} ")
+                    .append(failures(type)).append('\n');
+        }
+        sb.append("# TYPE pip_storage_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(storage).entrySet()) {
+            appendSummary(sb, "pip_storage_seconds", "op", e.getKey(), e.getValue());
+        }
+        if (taskCount >= 0) {
+            sb.append("# TYPE pip_tasks gauge\npip_tasks ").append(taskCount).append('\n');
+        }
+        if (saveFileBytes >= 0) {
+            sb.append("# TYPE pip_save_file_bytes gauge\npip_save_file_bytes ").append(saveFileBytes).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendSummary(StringBuilder sb, String metric, String label, String key,
+            LatencyHistogram h) {
+        String labels = label + "=\"" + key + "\"";
+        for (double q : new double[] {0.5, 0.9, 0.99, 1.0}) {
+            sb.append(metric).append('{').append(labels).append(",quantile=\"").append(q).append("\"} ")
+                    .append(h.valueAtPercentile(q * 100) / 1e9).append('\n');
+        }
+        sb.append(metric).append("_count{").append(labels).append("} ").append(h.count()).append('\n');
+    }
+
+    /**
+     * Writes the metrics to {@code file} now and then every {@code intervalSeconds} on a
+     * daemon thread, replacing the file in one step so readers never see half of it.
+     * Later calls do nothing.
+     *
+     * @param file            File to write.
+     * @param intervalSeconds Seconds between writes; at least 1.
+     */
+    public synchronized void startDump(Path file, long intervalSeconds) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pip-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleWithFixedDelay(() -> dump(file), 0, Math.max(1, intervalSeconds), TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(file), "pip-metrics-final"));
+    }
+
+    /** Starts {@link #startDump(Path, long)} if {@link #FILE_PROPERTY} is set. */
+    public void startDumpIfConfigured() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        long interval = DEFAULT_INTERVAL_SECONDS;
+        try {
+            interval = Long.parseLong(System.getProperty(INTERVAL_PROPERTY, String.valueOf(interval)).trim());
+        } catch (NumberFormatException e) {
+            // Keep the default; a typo here should not stop Pip from starting.
+        }
+        startDump(Paths.get(file), interval);
+    }
+
+    /**
+     * Writes the metrics to {@code file} once, through a temporary file renamed over it.
+     *
+     * @param file File to write.
+     * @return {@code true} if the file was written.
+     */
+    public boolean dump(Path file) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(tmp, toPrometheus(), StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            // Metrics are best effort; the next dump tries again.
+            return false;
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.1f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
@@ -19,9 +19,18 @@ public class Deadline extends Task {
         this.by = by;
     }
 
+    /**
+     * Returns the date/time this task is due.
+     *
+     * @return Due date/time.
+     */
+    public LocalDateTime getBy() {
+        return by;
+    }
+
     @Override
-    public String toString() {
-        return "[D]" + super.toString() + " (by: " + DateTimeParser.formatDateTimeSmart(by) + ")";
+    protected String render() {
+        return "[D]" + super.render() + " (by: " + DateTimeParser.formatDateTimeSmart(by) + ")";
     }
 
     @Override
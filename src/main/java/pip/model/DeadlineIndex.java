@@ -0,0 +1,70 @@
+package pip.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Deadlines ordered by due date/time, so the ones due in a range are found in O(log n + k)
+ * instead of by scanning the whole list. Deadlines due at the same moment share a bucket,
+ * in the order they were indexed.
+ */
+final class DeadlineIndex {
+    private final TreeMap<LocalDateTime, List<Deadline>> byDue = new TreeMap<>();
+
+    /**
+     * Indexes a task if it is a deadline.
+     *
+     * @param t Task added to the list.
+     */
+    void add(Task t) {
+        if (t instanceof Deadline) {
+            Deadline d = (Deadline) t;
+            byDue.computeIfAbsent(d.getBy(), k -> new ArrayList<>(1)).add(d);
+        }
+    }
+
+    /**
+     * Forgets a task if it is an indexed deadline.
+     *
+     * @param t Task removed from the list.
+     */
+    void remove(Task t) {
+        if (!(t instanceof Deadline)) {
+            return;
+        }
+        Deadline d = (Deadline) t;
+        List<Deadline> bucket = byDue.get(d.getBy());
+        if (bucket != null && bucket.remove(d) && bucket.isEmpty()) {
+            byDue.remove(d.getBy());
+        }
+    }
+
+    /**
+     * Returns the deadlines due at or after {@code from} and before {@code to}, soonest first.
+     *
+     * @param from Earliest due time, inclusive; {@code null} for no lower bound.
+     * @param to   Latest due time, exclusive; {@code null} for no upper bound.
+     * @return Matching deadlines.
+     */
+    List<Deadline> dueBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            return List.of();
+        }
+        NavigableMap<LocalDateTime, List<Deadline>> range = byDue;
+        if (from != null) {
+            range = range.tailMap(from, true);
+        }
+        if (to != null) {
+            range = range.headMap(to, false);
+        }
+        List<Deadline> out = new ArrayList<>();
+        for (Collection<Deadline> bucket : range.values()) {
+            out.addAll(bucket);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,322 @@
+package pip.model;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * One change to a {@link TaskList}, kept in its {@link History} so it can be undone and redone.
+ * An edit holds only what the change needs to be reversed: the tasks it added or removed and the
+ * positions it touched, never a copy of the list, so undoing takes time in proportion to the
+ * size of the change rather than the size of the list.
+ * <p>
+ * Edits refer to tasks by position. That is sound because they are undone strictly in reverse
+ * order, so each one sees the list exactly as it left it.
+ */
+public abstract class Edit {
+    /** What undoing or redoing an edit did to the list, so that only that change need be saved. */
+    public enum Effect {
+        /** One task was inserted at {@link Edit#effectIndex()}. */
+        INSERTED,
+        /** The task at {@link Edit#effectIndex()} was removed. */
+        REMOVED,
+        /** The done state of the task at {@link Edit#effectIndex()} changed. */
+        UPDATED,
+        /** Several tasks changed, or none did; the whole list must be saved. */
+        BULK
+    }
+
+    /** Rough bytes of object headers and fields per edit, used by {@link #estimatedBytes()}. */
+    private static final long BASE_BYTES = 64;
+
+    /** Order in which {@link History} recorded this edit. */
+    private long seq;
+
+    long getSeq() {
+        return seq;
+    }
+
+    void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Reverses the change.
+     *
+     * @param tasks List in the state this edit left it.
+     */
+    abstract void undo(TaskList tasks);
+
+    /**
+     * Applies the change again.
+     *
+     * @param tasks List in the state {@link #undo(TaskList)} left it.
+     */
+    abstract void redo(TaskList tasks);
+
+    /**
+     * Tells how the list changed when this edit was last undone or redone.
+     *
+     * @param isUndo Whether it was undone rather than redone.
+     * @return The change; {@link Effect#BULK} unless exactly one task was affected.
+     */
+    public abstract Effect effect(boolean isUndo);
+
+    /**
+     * Returns the position of the one task affected, when {@link #effect(boolean)} is not
+     * {@link Effect#BULK}.
+     *
+     * @return Position in the list as the undo or redo left it, or where the task was removed from.
+     */
+    public abstract int effectIndex();
+
+    /**
+     * Returns roughly how much memory this edit keeps alive, including tasks that only it
+     * still refers to.
+     *
+     * @return Estimate in bytes.
+     */
+    abstract long estimatedBytes();
+
+    /**
+     * Describes the change for the user, such as {@code deleted 3 tasks}.
+     *
+     * @return Short description in the past tense.
+     */
+    public abstract String describe();
+
+    /**
+     * Records that {@code task} was inserted at {@code index}.
+     *
+     * @param index Position the task now has.
+     * @param task  The task.
+     * @return The edit.
+     */
+    public static Edit added(int index, Task task) {
+        return new Added(index, task);
+    }
+
+    /**
+     * Records that tasks were removed.
+     *
+     * @param positions Positions the tasks had before they were removed.
+     * @param removed   The removed tasks, in list order.
+     * @return The edit.
+     */
+    public static Edit removed(BitSet positions, List<Task> removed) {
+        return new Removed(Positions.of(positions), removed);
+    }
+
+    /**
+     * Records that tasks were marked or unmarked.
+     *
+     * @param flipped Positions of the tasks whose done state actually changed.
+     * @param done    The state they were given.
+     * @param picked  Every task the user picked, changed or not, in list order.
+     * @return The edit.
+     */
+    public static Edit doneChanged(BitSet flipped, boolean done, List<Task> picked) {
+        return new DoneChanged(Positions.of(flipped), done, picked.size() == 1 ? picked.get(0) : null,
+                picked.size());
+    }
+
+    /** Rough bytes a task keeps alive: the object, its strings and its cached line. */
+    private static long taskBytes(Task t) {
+        return 96 + 4L * t.getDescription().length();
+    }
+
+    private static String quoted(Task t) {
+        return "\"" + t.getDescription() + "\"";
+    }
+
+    /** Undoes an insertion by removing the task again. */
+    private static final class Added extends Edit {
+        private final int index;
+        private final Task task;
+
+        Added(int index, Task task) {
+            this.index = index;
+            this.task = task;
+        }
+
+        @Override
+        void undo(TaskList tasks) {
+            assert tasks.get(index) == task : "history out of step with the list";
+            tasks.remove(index);
+        }
+
+        @Override
+        void redo(TaskList tasks) {
+            tasks.add(index, task);
+        }
+
+        @Override
+        public Effect effect(boolean isUndo) {
+            return isUndo ? Effect.REMOVED : Effect.INSERTED;
+        }
+
+        @Override
+        public int effectIndex() {
+            return index;
+        }
+
+        @Override
+        long estimatedBytes() {
+            return BASE_BYTES + taskBytes(task);
+        }
+
+        @Override
+        public String describe() {
+            return "added " + quoted(task);
+        }
+    }
+
+    /** Undoes a removal by putting the removed tasks back where they were. */
+    private static final class Removed extends Edit {
+        private final Positions positions;
+        private final List<Task> removed;
+        private final long bytes;
+
+        Removed(Positions positions, List<Task> removed) {
+            this.positions = positions;
+            this.removed = List.copyOf(removed);
+            long b = BASE_BYTES + positions.bytes() + 8L * removed.size();
+            for (Task t : removed) {
+                b += taskBytes(t);
+            }
+            this.bytes = b;
+        }
+
+        @Override
+        void undo(TaskList tasks) {
+            if (removed.size() == 1) {
+                tasks.add(positions.first(), removed.get(0));
+            } else {
+                tasks.insertAll(positions.toBitSet(), removed);
+            }
+        }
+
+        @Override
+        void redo(TaskList tasks) {
+            if (removed.size() == 1) {
+                tasks.remove(positions.first());
+            } else {
+                tasks.removeAll(positions.toBitSet());
+            }
+        }
+
+        @Override
+        public Effect effect(boolean isUndo) {
+            if (removed.size() != 1) {
+                return Effect.BULK;
+            }
+            return isUndo ? Effect.INSERTED : Effect.REMOVED;
+        }
+
+        @Override
+        public int effectIndex() {
+            return positions.first();
+        }
+
+        @Override
+        long estimatedBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String describe() {
+            return "deleted " + (removed.size() == 1 ? quoted(removed.get(0)) : removed.size() + " tasks");
+        }
+    }
+
+    /** Undoes marking or unmarking by flipping back only the tasks that changed. */
+    private static final class DoneChanged extends Edit {
+        private final Positions flipped;
+        private final boolean done;
+        /** The one task picked, for {@link #describe()}; {@code null} if several were. */
+        private final Task only;
+        private final int pickedCount;
+
+        DoneChanged(Positions flipped, boolean done, Task only, int pickedCount) {
+            this.flipped = flipped;
+            this.done = done;
+            this.only = only;
+            this.pickedCount = pickedCount;
+        }
+
+        @Override
+        void undo(TaskList tasks) {
+            tasks.setDone(flipped.toBitSet(), !done);
+        }
+
+        @Override
+        void redo(TaskList tasks) {
+            tasks.setDone(flipped.toBitSet(), done);
+        }
+
+        @Override
+        public Effect effect(boolean isUndo) {
+            return flipped.count() == 1 ? Effect.UPDATED : Effect.BULK;
+        }
+
+        @Override
+        public int effectIndex() {
+            return flipped.first();
+        }
+
+        @Override
+        long estimatedBytes() {
+            return BASE_BYTES + flipped.bytes();
+        }
+
+        @Override
+        public String describe() {
+            return "marked " + (only != null ? quoted(only) : pickedCount + " tasks")
+                    + (done ? " as done" : " as not done");
+        }
+    }
+
+    /**
+     * A set of positions stored in whichever form is smaller: a sorted array when there are few,
+     * as for one task near the end of a long list, or a bitmap when they are dense, as for a range.
+     */
+    private static final class Positions {
+        private final int[] sparse;
+        private final long[] dense;
+
+        private Positions(int[] sparse, long[] dense) {
+            this.sparse = sparse;
+            this.dense = dense;
+        }
+
+        static Positions of(BitSet set) {
+            int count = set.cardinality();
+            if ((long) count * Integer.SIZE < set.length()) {
+                return new Positions(set.stream().toArray(), null);
+            }
+            return new Positions(null, set.toLongArray());
+        }
+
+        int count() {
+            return sparse != null ? sparse.length : BitSet.valueOf(dense).cardinality();
+        }
+
+        int first() {
+            return sparse != null ? sparse[0] : BitSet.valueOf(dense).nextSetBit(0);
+        }
+
+        BitSet toBitSet() {
+            if (dense != null) {
+                return BitSet.valueOf(dense);
+            }
+            BitSet set = new BitSet();
+            for (int i : sparse) {
+                set.set(i);
+            }
+            return set;
+        }
+
+        long bytes() {
+            return 16 + (sparse != null ? 4L * sparse.length : 8L * dense.length);
+        }
+    }
+}
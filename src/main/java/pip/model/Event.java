@@ -1,26 +1,101 @@
 package pip.model;
 
-/** Task that spans a time interval (start to end). */
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import pip.logic.DateTimeParser;
+
+/**
+ * Task that spans a time interval (start to end).
+ * <p>
+ * Bounds that {@link DateTimeParser} understands are kept as timestamps, so the event can be
+ * found by date; an end given as just a time, as in {@code /from 2/10/2025 2pm /to 4pm}, is
+ * taken to fall on the start's day. Bounds it cannot read, such as "Mon 9am" in older save
+ * files, are kept as the text that was typed and the event has no timestamps.
+ */
 public class Event extends Task {
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("d/M/yyyy");
+
     protected String from;
     protected String to;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
 
     /**
      * Constructs an Event with the given description and time range.
      *
      * @param description User-visible description.
-     * @param from        Start time text (unparsed).
-     * @param to          End time text (unparsed).
+     * @param from        Start time text.
+     * @param to          End time text.
      */
     public Event(String description, String from, String to) {
         super(description);
-        this.from = from;
-        this.to = to;
+        LocalDateTime s = DateTimeParser.tryParseDateTime(from);
+        LocalDateTime e = null;
+        if (s != null) {
+            e = DateTimeParser.tryParseDateTime(to);
+            if (e == null) {
+                e = DateTimeParser.tryParseDateTime(s.format(DAY) + " " + to.trim());
+            }
+        }
+        if (e == null || e.isBefore(s)) {
+            this.start = null;
+            this.end = null;
+            this.from = from;
+            this.to = to;
+        } else {
+            this.start = s;
+            this.end = e;
+            this.from = s.toString();
+            this.to = e.toString();
+        }
+    }
+
+    /**
+     * Returns the start as saved: an ISO date-time if it was understood, otherwise the text
+     * as entered.
+     *
+     * @return Start of the event.
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the end as saved: an ISO date-time if it was understood, otherwise the text
+     * as entered.
+     *
+     * @return End of the event.
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Returns when the event starts.
+     *
+     * @return Start date/time, or {@code null} if the bounds are free text.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns when the event ends.
+     *
+     * @return End date/time, or {@code null} if the bounds are free text.
+     */
+    public LocalDateTime getEnd() {
+        return end;
     }
 
     @Override
-    public String toString() {
-        return "[E]" + super.toString() + " (from: " + from + " to: " + to + ")";
+    protected String render() {
+        if (start == null) {
+            return "[E]" + super.render() + " (from: " + from + " to: " + to + ")";
+        }
+        return "[E]" + super.render() + " (from: " + DateTimeParser.formatDateTimeSmart(start)
+                + " to: " + DateTimeParser.formatDateTimeSmart(end) + ")";
     }
 
     @Override
@@ -0,0 +1,214 @@
+package pip.model;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Interval tree over the events that have timestamps, answering "which events overlap this
+ * span" in O(log n + k) expected time.
+ * <p>
+ * The tree is a treap ordered by start time (ties broken by task id) in which every node
+ * also records the latest end in its subtree. A search skips any subtree whose latest end
+ * is before the span and stops going right once starts pass the span's end. Times are
+ * held as UTC epoch seconds, like the binary save format.
+ * <p>
+ * An event covers {@code [start, end)}. An end at midnight counts as that whole day, so an
+ * event from 2/10/2025 to 3/10/2025 covers both days, and an event that starts and ends at
+ * the same moment covers one second.
+ */
+final class EventIndex {
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    /**
+     * Indexes a task if it is an event with timestamps.
+     *
+     * @param t Task added to the list.
+     */
+    void add(Task t) {
+        Node n = nodeFor(t);
+        if (n != null) {
+            n.priority = random.nextInt();
+            root = insert(root, n);
+        }
+    }
+
+    /**
+     * Forgets a task if it is an indexed event.
+     *
+     * @param t Task removed from the list.
+     */
+    void remove(Task t) {
+        Node key = nodeFor(t);
+        if (key != null) {
+            root = removeNode(root, key);
+        }
+    }
+
+    /**
+     * Returns the events that overlap {@code [from, to)}, ordered by start time.
+     *
+     * @param from Start of the span, inclusive.
+     * @param to   End of the span, exclusive.
+     * @return Overlapping events.
+     */
+    List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> out = new ArrayList<>();
+        collect(root, seconds(from), seconds(to), out);
+        return out;
+    }
+
+    /**
+     * Returns the other events that overlap {@code e}, ordered by start time.
+     *
+     * @param e Event with timestamps.
+     * @return Overlapping events, not including {@code e}.
+     */
+    List<Event> overlapping(Event e) {
+        Node span = nodeFor(e);
+        List<Event> out = new ArrayList<>();
+        collect(root, span.start, span.end, out);
+        out.remove(e);
+        return out;
+    }
+
+    /** Returns an unlinked node holding {@code t}'s span, or {@code null} if it has none. */
+    private static Node nodeFor(Task t) {
+        if (!(t instanceof Event) || ((Event) t).getStart() == null) {
+            return null;
+        }
+        Event e = (Event) t;
+        long start = seconds(e.getStart());
+        LocalDateTime last = e.getEnd();
+        long end = seconds(last.toLocalTime().equals(LocalTime.MIDNIGHT) ? last.plusDays(1) : last);
+        return new Node(e, start, Math.max(end, start + 1));
+    }
+
+    private static long seconds(LocalDateTime dt) {
+        return dt.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /** Adds to {@code out}, in start order, the events under {@code n} overlapping {@code [from, to)}. */
+    private static void collect(Node n, long from, long to, List<Event> out) {
+        if (n == null || n.maxEnd <= from) {
+            return;
+        }
+        collect(n.left, from, to, out);
+        if (n.start >= to) {
+            return;
+        }
+        if (n.end > from) {
+            out.add(n.event);
+        }
+        collect(n.right, from, to, out);
+    }
+
+    private static Node insert(Node n, Node x) {
+        if (n == null) {
+            return x;
+        }
+        if (x.priority > n.priority) {
+            Node[] parts = split(n, x);
+            x.left = parts[0];
+            x.right = parts[1];
+            update(x);
+            return x;
+        }
+        if (precedes(x, n)) {
+            n.left = insert(n.left, x);
+        } else {
+            n.right = insert(n.right, x);
+        }
+        update(n);
+        return n;
+    }
+
+    private static Node removeNode(Node n, Node key) {
+        if (n == null) {
+            return null;
+        }
+        if (n.event == key.event) {
+            return merge(n.left, n.right);
+        }
+        if (precedes(key, n)) {
+            n.left = removeNode(n.left, key);
+        } else {
+            n.right = removeNode(n.right, key);
+        }
+        update(n);
+        return n;
+    }
+
+    /** Splits {@code n} into the nodes ordered before {@code key} and the rest. */
+    private static Node[] split(Node n, Node key) {
+        if (n == null) {
+            return new Node[2];
+        }
+        if (precedes(n, key)) {
+            Node[] parts = split(n.right, key);
+            n.right = parts[0];
+            update(n);
+            parts[0] = n;
+            return parts;
+        }
+        Node[] parts = split(n.left, key);
+        n.left = parts[1];
+        update(n);
+        parts[1] = n;
+        return parts;
+    }
+
+    /** Concatenates two trees; every node of {@code a} precedes every node of {@code b}. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static boolean precedes(Node a, Node b) {
+        return a.start < b.start || (a.start == b.start && a.event.getId() < b.event.getId());
+    }
+
+    private static void update(Node n) {
+        long max = n.end;
+        if (n.left != null) {
+            max = Math.max(max, n.left.maxEnd);
+        }
+        if (n.right != null) {
+            max = Math.max(max, n.right.maxEnd);
+        }
+        n.maxEnd = max;
+    }
+
+    private static final class Node {
+        private final Event event;
+        private final long start;
+        private final long end;
+        private long maxEnd;
+        private int priority;
+        private Node left;
+        private Node right;
+
+        Node(Event event, long start, long end) {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
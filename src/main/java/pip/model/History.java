@@ -0,0 +1,145 @@
+package pip.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded undo and redo stacks of {@link Edit}s for one {@link TaskList}. Recording a new edit
+ * clears the redo stack. When the stacks hold more than {@code maxSteps} edits, or their edits
+ * together keep more than {@code maxBytes} alive, the oldest edits are forgotten; an edit larger
+ * than the whole budget is not kept at all.
+ * <p>
+ * Undo and redo are serialized by this object's monitor, which is always taken before the list's
+ * own lock, never while holding it.
+ */
+public final class History {
+    /** System property capping the memory history may keep alive, in bytes. */
+    public static final String MAX_BYTES_PROPERTY = "pip.undo.maxBytes";
+    /** System property capping how many changes can be undone. */
+    public static final String MAX_STEPS_PROPERTY = "pip.undo.maxSteps";
+
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    private static final int DEFAULT_MAX_STEPS = 100;
+
+    private final long maxBytes;
+    private final int maxSteps;
+    /** Newest first. */
+    private final Deque<Edit> undo = new ArrayDeque<>();
+    /** Most recently undone first. */
+    private final Deque<Edit> redo = new ArrayDeque<>();
+    private long bytes;
+    private long nextSeq;
+    /** First sequence number recorded since {@link #mark()}; -1 if there is no mark. */
+    private long markSeq = -1;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param maxBytes Most bytes the recorded edits may keep alive.
+     * @param maxSteps Most edits kept across both stacks.
+     */
+    public History(long maxBytes, int maxSteps) {
+        this.maxBytes = maxBytes;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Creates an empty history with limits from {@link #MAX_BYTES_PROPERTY} and
+     * {@link #MAX_STEPS_PROPERTY}, or their defaults of 16 MiB and 100 steps.
+     *
+     * @return The history.
+     */
+    public static History fromProperties() {
+        return new History(Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES),
+                Integer.getInteger(MAX_STEPS_PROPERTY, DEFAULT_MAX_STEPS));
+    }
+
+    /**
+     * Records a change that has just been made to the list.
+     *
+     * @param edit The change.
+     */
+    public synchronized void record(Edit edit) {
+        while (!redo.isEmpty()) {
+            bytes -= redo.pop().estimatedBytes();
+        }
+        edit.setSeq(nextSeq++);
+        undo.push(edit);
+        bytes += edit.estimatedBytes();
+        while (!undo.isEmpty() && (undo.size() > maxSteps || bytes > maxBytes)) {
+            bytes -= undo.removeLast().estimatedBytes();
+        }
+    }
+
+    /**
+     * Reverses the most recent change still on record.
+     *
+     * @param tasks The list this history belongs to.
+     * @return The change that was undone, or {@code null} if there is none.
+     */
+    public synchronized Edit undo(TaskList tasks) {
+        Edit edit = undo.poll();
+        if (edit != null) {
+            edit.undo(tasks);
+            redo.push(edit);
+        }
+        return edit;
+    }
+
+    /**
+     * Applies again the change most recently undone.
+     *
+     * @param tasks The list this history belongs to.
+     * @return The change that was redone, or {@code null} if there is none.
+     */
+    public synchronized Edit redo(TaskList tasks) {
+        Edit edit = redo.poll();
+        if (edit != null) {
+            edit.redo(tasks);
+            undo.push(edit);
+        }
+        return edit;
+    }
+
+    /**
+     * Returns how many changes can be undone.
+     *
+     * @return Size of the undo stack.
+     */
+    public synchronized int undoableCount() {
+        return undo.size();
+    }
+
+    /**
+     * Returns roughly how much memory the recorded edits keep alive.
+     *
+     * @return Estimate in bytes.
+     */
+    public synchronized long estimatedBytes() {
+        return bytes;
+    }
+
+    /** Notes the current point so {@link #rewind()} can forget the edits recorded after it. */
+    synchronized void mark() {
+        markSeq = nextSeq;
+    }
+
+    /** Forgets the mark, keeping the edits recorded since. */
+    synchronized void clearMark() {
+        markSeq = -1;
+    }
+
+    /**
+     * Forgets the edits recorded since {@link #mark()} without applying them, for when the list
+     * itself has been put back to that point. Does nothing if there is no mark.
+     */
+    synchronized void rewind() {
+        if (markSeq < 0) {
+            return;
+        }
+        while (!undo.isEmpty() && undo.peek().getSeq() >= markSeq) {
+            bytes -= undo.pop().estimatedBytes();
+        }
+        markSeq = -1;
+    }
+}
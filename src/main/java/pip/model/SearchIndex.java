@@ -0,0 +1,220 @@
+package pip.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from 2- and 3-character grams of lower-cased descriptions to tasks.
+ * <p>
+ * It narrows typo-tolerant search without changing its results. If some substring of a
+ * description is within edit distance 1 of a term, one edit can only touch one half of
+ * the term, so the other half appears verbatim in the description. Candidates for a term
+ * are therefore the tasks containing its left half or its right half. The caller must
+ * still verify each candidate.
+ * <p>
+ * Each indexed task gets an ordinal in append order, so posting lists are sorted int
+ * arrays and list order falls out of the merge. Removed ordinals are only flagged. Once
+ * more than half of the ordinals are dead, the index is rebuilt from the live tasks.
+ */
+final class SearchIndex {
+    /** Shorter terms have halves of a single character and are not narrowed. */
+    static final int MIN_TERM_LENGTH = 4;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Task, Integer> ordinals = new IdentityHashMap<>();
+    private final List<Task> byOrdinal = new ArrayList<>();
+    private final BitSet dead = new BitSet();
+    private int deadCount;
+
+    /**
+     * Indexes a task appended to the end of the list.
+     *
+     * @param t Task to index.
+     */
+    void add(Task t) {
+        int ord = byOrdinal.size();
+        byOrdinal.add(t);
+        ordinals.put(t, ord);
+        for (long g : grams(t.getDescription().toLowerCase())) {
+            postings.computeIfAbsent(g, k -> new Postings()).add(ord);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param t Task to forget.
+     */
+    void remove(Task t) {
+        Integer ord = ordinals.remove(t);
+        if (ord == null) {
+            return;
+        }
+        byOrdinal.set(ord, null);
+        dead.set(ord);
+        deadCount++;
+        if (deadCount > ordinals.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns, in list order, every task that could match all terms, or {@code null} if no
+     * term is long enough to narrow the search.
+     *
+     * @param terms Lower-cased search terms.
+     * @return Candidate superset of the matches, or {@code null}.
+     */
+    List<Task> candidates(String[] terms) {
+        Postings result = null;
+        for (String term : terms) {
+            if (term.length() < MIN_TERM_LENGTH) {
+                continue;
+            }
+            int half = term.length() / 2;
+            Postings forTerm = union(containing(term, 0, half), containing(term, half, term.length()));
+            result = result == null ? forTerm : intersect(result, forTerm);
+            if (result.size == 0) {
+                break;
+            }
+        }
+        if (result == null) {
+            return null;
+        }
+        List<Task> out = new ArrayList<>(result.size);
+        for (int i = 0; i < result.size; i++) {
+            int ord = result.data[i];
+            if (!dead.get(ord)) {
+                out.add(byOrdinal.get(ord));
+            }
+        }
+        return out;
+    }
+
+    /** Sorted ordinals of tasks whose description may contain {@code s[from, to)} (length 2 or more). */
+    private Postings containing(String s, int from, int to) {
+        if (to - from == 2) {
+            return postings.getOrDefault(key(s, from, 2), Postings.EMPTY);
+        }
+        Postings out = null;
+        for (int i = from; i + 3 <= to; i++) {
+            Postings p = postings.get(key(s, i, 3));
+            if (p == null) {
+                return Postings.EMPTY;
+            }
+            out = out == null ? p : intersect(out, p);
+        }
+        return out;
+    }
+
+    private void rebuild() {
+        List<Task> live = new ArrayList<>(ordinals.size());
+        for (Task t : byOrdinal) {
+            if (t != null) {
+                live.add(t);
+            }
+        }
+        postings.clear();
+        ordinals.clear();
+        byOrdinal.clear();
+        dead.clear();
+        deadCount = 0;
+        for (Task t : live) {
+            add(t);
+        }
+    }
+
+    private static Postings intersect(Postings a, Postings b) {
+        Postings out = new Postings(Math.min(a.size, b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.data[i] < b.data[j]) {
+                i++;
+            } else if (a.data[i] > b.data[j]) {
+                j++;
+            } else {
+                out.add(a.data[i]);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private static Postings union(Postings a, Postings b) {
+        Postings out = new Postings(a.size + b.size);
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.data[i] < b.data[j])) {
+                out.add(a.data[i++]);
+            } else if (i == a.size || b.data[j] < a.data[i]) {
+                out.add(b.data[j++]);
+            } else {
+                out.add(a.data[i]);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /** Distinct 2- and 3-gram keys of {@code text}. */
+    private static long[] grams(String text) {
+        int len = text.length();
+        if (len < 2) {
+            return new long[0];
+        }
+        long[] keys = new long[2 * len - 3];
+        int n = 0;
+        for (int i = 0; i + 2 <= len; i++) {
+            keys[n++] = key(text, i, 2);
+            if (i + 3 <= len) {
+                keys[n++] = key(text, i, 3);
+            }
+        }
+        Arrays.sort(keys, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || keys[i] != keys[unique - 1]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, unique);
+    }
+
+    /** Packs a 2- or 3-char gram into a long; the top bit distinguishes the two lengths. */
+    private static long key(String s, int at, int length) {
+        long k = ((long) s.charAt(at) << 32) | ((long) s.charAt(at + 1) << 16);
+        return length == 3 ? k | s.charAt(at + 2) | Long.MIN_VALUE : k;
+    }
+
+    /** Growable, ascending list of ordinals. */
+    private static final class Postings {
+        static final Postings EMPTY = new Postings(0);
+
+        private int[] data;
+        private int size;
+
+        Postings() {
+            this(4);
+        }
+
+        Postings(int capacity) {
+            data = new int[capacity];
+        }
+
+        void add(int ord) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, Math.max(4, size * 2));
+            }
+            data[size++] = ord;
+        }
+    }
+}
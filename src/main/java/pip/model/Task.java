@@ -1,18 +1,27 @@
 package pip.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import pip.app.PipException;
 import pip.logic.DateTimeParser;
 
 /**
  * Base model for a user task in Pip.
  * Subclasses provide a type tag and custom serialization for persistence.
+ * Every task gets an id when it is created that never changes, even as its position in
+ * a list does; ids are unique within a running application and are not saved.
  */
 public abstract class Task {
     public static final String TODO_TAG = "T";
     public static final String DEADLINE_TAG = "D";
     public static final String EVENT_TAG = "E";
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id = NEXT_ID.getAndIncrement();
     protected String description;
-    protected boolean isDone;
+    protected volatile boolean isDone;
+    /** What {@link #toString()} last returned; cleared when the done state changes. */
+    private volatile String rendered;
 
     /**
      * Constructs a Task with the given description; tasks start as not done.
@@ -24,6 +33,15 @@ public abstract class Task {
         this.isDone = false;
     }
 
+    /**
+     * Returns this task's id, which stays the same for the task's whole lifetime.
+     *
+     * @return Positive id, unique among tasks created by this application.
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Returns the status icon used in list rendering.
      *
@@ -33,14 +51,29 @@ public abstract class Task {
         return isDone ? "X" : " ";
     }
 
+    /**
+     * Returns whether this task has been completed.
+     *
+     * @return {@code true} if done.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
     /** Marks this task as completed. */
     public void mark() {
-        isDone = true;
+        if (!isDone) {
+            isDone = true;
+            rendered = null;
+        }
     }
 
     /** Marks this task as uncompleted. */
     public void unmark() {
-        isDone = false;
+        if (isDone) {
+            isDone = false;
+            rendered = null;
+        }
     }
 
     /** One-letter type tag for saving, "T", "D", "E". */
@@ -79,8 +112,23 @@ public abstract class Task {
      * @throws PipException If the line is malformed or references an unknown type.
      */
     public static Task fromDataString(String line) throws PipException {
-        String[] parts = line.split("\\s*\\|\\s*");
-        requireMinParts(parts, 3, "Corrupted save line: " + line);
+        return fromFields(line.split("\\s*\\|\\s*"), line);
+    }
+
+    /**
+     * Builds a task from the already-split, trimmed fields of a save line.
+     *
+     * @param parts Fields of the line in order: type tag, done flag, then type-specific values.
+     * @return Concrete {@link Task} instance represented by the fields.
+     * @throws PipException If fields are missing or reference an unknown type.
+     */
+    public static Task fromFields(String[] parts) throws PipException {
+        return fromFields(parts, null);
+    }
+
+    /** {@code line} is only used in error messages; it is rebuilt from the fields when null. */
+    private static Task fromFields(String[] parts, String line) throws PipException {
+        requireMinParts(parts, 3, "save", line);
 
         String type = parts[0];
         boolean done = "1".equals(parts[1]);
@@ -105,7 +153,7 @@ public abstract class Task {
     }
 
     private static Deadline parseDeadline(String[] parts, boolean done, String line) throws PipException {
-        requireMinParts(parts, 4, "Corrupted deadline line: " + line);
+        requireMinParts(parts, 4, "deadline", line);
         String desc = unesc(parts[2]);
         var dt = DateTimeParser.parseDateTimeFlexible(parts[3]);
         Deadline d = new Deadline(desc, dt);
@@ -114,7 +162,7 @@ public abstract class Task {
     }
 
     private static Event parseEvent(String[] parts, boolean done, String line) throws PipException {
-        requireMinParts(parts, 5, "Corrupted event line: " + line);
+        requireMinParts(parts, 5, "event", line);
         String desc = unesc(parts[2]);
         String from = unesc(parts[3]);
         String to = unesc(parts[4]);
@@ -123,9 +171,11 @@ public abstract class Task {
         return e;
     }
 
-    private static void requireMinParts(String[] parts, int min, String errorMsg) throws PipException {
+    /** Builds the error message only on failure, so valid lines cost no string work. */
+    private static void requireMinParts(String[] parts, int min, String kind, String line) throws PipException {
         if (parts.length < min) {
-            throw new PipException(errorMsg);
+            String shown = line != null ? line : String.join(" | ", parts);
+            throw new PipException("Corrupted " + kind + " line: " + shown);
         }
     }
 
@@ -135,8 +185,26 @@ public abstract class Task {
         }
     }
 
+    /**
+     * Returns the line shown for this task in listings. The text is built once by
+     * {@link #render()} and reused until the task is marked or unmarked.
+     */
     @Override
-    public String toString() {
+    public final String toString() {
+        String s = rendered;
+        if (s == null) {
+            s = render();
+            rendered = s;
+        }
+        return s;
+    }
+
+    /**
+     * Builds the text returned by {@link #toString()}; subclasses add their type tag and details.
+     *
+     * @return Status icon and description.
+     */
+    protected String render() {
         return "[" + getStatusIcon() + "] " + description;
     }
 }
@@ -1,15 +1,60 @@
 package pip.model;
 
+import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
 
-/** Mutable container for {@link Task} objects with convenience render methods. */
+/**
+ * Mutable container for {@link Task} objects with convenience render methods.
+ * Positional access, insertion and removal take O(log n); tasks can also be looked up by id.
+ * <p>
+ * The list is safe to share between threads. Changes are serialized by a write lock, while
+ * {@link #render()}, {@link #findCandidates(String[])} and {@link #snapshot()} read under a
+ * shared lock and so always see the list between two changes, never in the middle of one.
+ * {@link #size()} is an optimistic read that takes no lock unless a change races with it.
+ * Commands that check an index and then use it still need their own exclusion. While a list
+ * opened on a {@link TaskSource} still has unparsed tasks, reads that may parse some take the
+ * write lock instead.
+ * <p>
+ * {@link #render()} keeps its output between calls, so listing an unchanged list is free. Appends
+ * extend the kept output and {@link #setDone(int, boolean)} patches the one row it changes; other
+ * changes make the next render rebuild it from the tasks' own cached lines.
+ * <p>
+ * The list's own methods do not record anything for undo; commands record each change they
+ * make in {@link #getHistory()}.
+ */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    /** First line of {@link #render()} for a non-empty list. */
+    public static final String LIST_HEADER = "Here are the tasks in your list:";
+    /** What {@link #render()} returns for an empty list. */
+    public static final String EMPTY_MESSAGE = "Your list is empty! Add some tasks first :))";
+
+    private final StampedLock lock = new StampedLock();
+    private TaskOrder tasks;
+    /** Built on the first search, then kept in step with every add and remove. */
+    private SearchIndex searchIndex;
+    /** Built with {@link #eventIndex} on the first query by date, then kept in step with every add and remove. */
+    private DeadlineIndex deadlineIndex;
+    private EventIndex eventIndex;
+    /** State to return to on {@link #rollback()}; {@code null} outside a batch. */
+    private Checkpoint checkpoint;
+    /** Changes commands have recorded so they can be undone. */
+    private final History history = History.fromProperties();
+    /** Output of {@link #render()} for the current tasks; {@code null} when it must be rebuilt. */
+    private StringBuilder listing;
+    /** Offset in {@link #listing} at which each task's line starts. */
+    private int[] rowStarts;
+    /** {@link #listing} as returned by the last render; {@code null} once the listing changes. */
+    private String listingText;
 
     /** Constructs an empty {@code TaskList}. */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.tasks = new TaskOrder(List.of());
     }
 
     /**
@@ -19,7 +64,18 @@ public class TaskList {
      */
     public TaskList(List<Task> loaded) {
         assert loaded != null : "loaded list must not be null";
-        this.tasks = new ArrayList<>(loaded);
+        this.tasks = new TaskOrder(loaded);
+    }
+
+    /**
+     * Constructs a TaskList over saved tasks without parsing any of them. Each task is parsed
+     * the first time a command reaches it; showing or searching the whole list parses the rest.
+     *
+     * @param saved Saved tasks to parse on demand.
+     */
+    public TaskList(TaskSource saved) {
+        assert saved != null : "source must not be null";
+        this.tasks = new TaskOrder(saved);
     }
 
     /**
@@ -28,7 +84,17 @@ public class TaskList {
      * @return Current size (0 or more).
      */
     public int size() {
-        return tasks.size();
+        long stamp = lock.tryOptimisticRead();
+        int n = tasks.size();
+        if (lock.validate(stamp)) {
+            return n;
+        }
+        stamp = lock.readLock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
@@ -38,8 +104,43 @@ public class TaskList {
      * @return Task at the index.
      */
     public Task get(int i) {
-        assert i >= 0 && i < tasks.size() : "index out of range";
-        return tasks.get(i);
+        long stamp = readLockParsing();
+        try {
+            assert i >= 0 && i < tasks.size() : "index out of range";
+            return tasks.get(i);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Returns the task with the given id.
+     *
+     * @param id Id from {@link Task#getId()}.
+     * @return The task, or {@code null} if no task in this list has that id.
+     */
+    public Task getById(long id) {
+        long stamp = lock.readLock();
+        try {
+            return tasks.byId(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the current position of the task with the given id.
+     *
+     * @param id Id from {@link Task#getId()}.
+     * @return Zero-based index, or -1 if no task in this list has that id.
+     */
+    public int indexOf(long id) {
+        long stamp = lock.readLock();
+        try {
+            return tasks.indexOf(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
@@ -48,8 +149,53 @@ public class TaskList {
      * @param t Task to add.
      */
     public void add(Task t) {
+        long stamp = lock.writeLock();
+        try {
+            insert(tasks.size(), t);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Inserts a task so that it ends up at the given zero-based index.
+     *
+     * @param i Index from 0 to {@link #size()} inclusive.
+     * @param t Task to insert; must not already be in this list.
+     */
+    public void add(int i, Task t) {
+        long stamp = lock.writeLock();
+        try {
+            insert(i, t);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void insert(int i, Task t) {
         assert t != null : "task must not be null";
-        tasks.add(t);
+        assert i >= 0 && i <= tasks.size() : "index out of range";
+        boolean isAppend = i == tasks.size();
+        tasks.add(i, t);
+        if (listing != null) {
+            if (isAppend) {
+                appendRow(i, t);
+            } else {
+                dropListing();
+            }
+        }
+        if (deadlineIndex != null) {
+            deadlineIndex.add(t);
+            eventIndex.add(t);
+        }
+        if (searchIndex != null) {
+            if (isAppend) {
+                searchIndex.add(t);
+            } else {
+                // The index relies on append order matching list order.
+                searchIndex = null;
+            }
+        }
     }
 
     /**
@@ -59,17 +205,409 @@ public class TaskList {
      * @return The removed task.
      */
     public Task remove(int i) {
+        long stamp = lock.writeLock();
+        try {
+            assert i >= 0 && i < tasks.size() : "index out of range";
+            Task removed = tasks.remove(i);
+            dropListing();
+            if (searchIndex != null) {
+                searchIndex.remove(removed);
+            }
+            if (deadlineIndex != null) {
+                deadlineIndex.remove(removed);
+                eventIndex.remove(removed);
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the tasks at every position set in {@code positions} as one change. The
+     * survivors are collected in one pass and the order is rebuilt from them in linear time.
+     *
+     * @param positions Zero-based positions to remove, all below {@link #size()}.
+     * @return The removed tasks, in list order.
+     */
+    public List<Task> removeAll(BitSet positions) {
+        long stamp = lock.writeLock();
+        try {
+            assert positions.length() <= tasks.size() : "index out of range";
+            int count = positions.cardinality();
+            List<Task> kept = new ArrayList<>(tasks.size() - count);
+            List<Task> removed = new ArrayList<>(count);
+            int i = 0;
+            for (Task t : tasks) {
+                (positions.get(i++) ? removed : kept).add(t);
+            }
+            tasks = new TaskOrder(kept);
+            dropListing();
+            for (Task t : removed) {
+                if (searchIndex != null) {
+                    searchIndex.remove(t);
+                }
+                if (deadlineIndex != null) {
+                    deadlineIndex.remove(t);
+                    eventIndex.remove(t);
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Inserts tasks so that each ends up at the matching position, reversing
+     * {@link #removeAll(BitSet)}. The order is rebuilt in one pass, in linear time.
+     *
+     * @param positions Zero-based positions the tasks are to have.
+     * @param added     Tasks to insert, one per set position, in list order.
+     */
+    public void insertAll(BitSet positions, List<Task> added) {
+        long stamp = lock.writeLock();
+        try {
+            assert positions.cardinality() == added.size() : "one task per position";
+            assert positions.length() <= tasks.size() + added.size() : "index out of range";
+            List<Task> merged = new ArrayList<>(tasks.size() + added.size());
+            Iterator<Task> kept = tasks.iterator();
+            Iterator<Task> inserted = added.iterator();
+            for (int i = 0; kept.hasNext() || inserted.hasNext(); i++) {
+                merged.add(positions.get(i) ? inserted.next() : kept.next());
+            }
+            tasks = new TaskOrder(merged);
+            dropListing();
+            // The search index relies on append order matching list order.
+            searchIndex = null;
+            if (deadlineIndex != null) {
+                for (Task t : added) {
+                    deadlineIndex.add(t);
+                    eventIndex.add(t);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks or unmarks the task at the given index. Changing a listed task's done state through
+     * this method rather than on the task itself keeps the output of {@link #render()} current
+     * without rebuilding it.
+     *
+     * @param i    Zero-based index.
+     * @param done Whether the task is now done.
+     * @return The task at the index.
+     */
+    public Task setDone(int i, boolean done) {
+        long stamp = lock.writeLock();
+        try {
+            return setDoneAt(i, done);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks or unmarks the tasks at every position set in {@code positions}, as one change.
+     *
+     * @param positions Zero-based positions, all below {@link #size()}.
+     * @param done      Whether the tasks are now done.
+     * @return The tasks at those positions, in list order.
+     */
+    public List<Task> setDone(BitSet positions, boolean done) {
+        long stamp = lock.writeLock();
+        try {
+            List<Task> changed = new ArrayList<>(positions.cardinality());
+            for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+                changed.add(setDoneAt(i, done));
+            }
+            return changed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Task setDoneAt(int i, boolean done) {
         assert i >= 0 && i < tasks.size() : "index out of range";
-        return tasks.remove(i);
+        Task t = tasks.get(i);
+        String before = t.toString();
+        if (done) {
+            t.mark();
+        } else {
+            t.unmark();
+        }
+        String after = t.toString();
+        if (listing != null && !before.equals(after)) {
+            if (before.length() == after.length()) {
+                listing.replace(rowStarts[i], rowStarts[i] + after.length(), after);
+                listingText = null;
+            } else {
+                dropListing();
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Returns, in list order, the tasks whose descriptions could match every term with at
+     * most one typo per term. The result is a superset of the real matches, so callers must
+     * still check each task; terms too short to narrow the search yield the whole list.
+     *
+     * @param terms Lower-cased search terms.
+     * @return Candidate tasks in list order.
+     */
+    public List<Task> findCandidates(String[] terms) {
+        long stamp = readLockParsing();
+        try {
+            if (searchIndex == null) {
+                stamp = buildSearchIndex(stamp);
+            }
+            List<Task> candidates = searchIndex.candidates(terms);
+            return candidates == null ? List.copyOf(asList()) : candidates;
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /** Builds the search index while holding a read lock; returns the stamp of the lock now held. */
+    private long buildSearchIndex(long readStamp) {
+        long stamp = toWriteLock(readStamp);
+        if (searchIndex == null) {
+            SearchIndex built = new SearchIndex();
+            for (Task t : tasks) {
+                built.add(t);
+            }
+            searchIndex = built;
+        }
+        return lock.tryConvertToReadLock(stamp);
     }
 
     /**
-     * Returns an unmodifiable view of the internal list.
+     * Returns the deadlines due at or after {@code from} and before {@code to}, soonest first.
+     * Takes O(log n + k) once the date indexes exist; the first query by date builds them.
+     *
+     * @param from Earliest due time, inclusive; {@code null} for no lower bound.
+     * @param to   Latest due time, exclusive; {@code null} for no upper bound.
+     * @return Matching deadlines ordered by due date/time.
+     */
+    public List<Deadline> dueBetween(LocalDateTime from, LocalDateTime to) {
+        long stamp = lock.readLock();
+        try {
+            if (deadlineIndex == null) {
+                stamp = buildDateIndexes(stamp);
+            }
+            return deadlineIndex.dueBetween(from, to);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Returns the events with timestamps that overlap {@code [from, to)}, by start time.
+     * Takes O(log n + k) expected time once the date indexes exist.
+     *
+     * @param from Start of the span, inclusive.
+     * @param to   End of the span, exclusive.
+     * @return Overlapping events ordered by start.
+     */
+    public List<Event> eventsBetween(LocalDateTime from, LocalDateTime to) {
+        long stamp = lock.readLock();
+        try {
+            if (eventIndex == null) {
+                stamp = buildDateIndexes(stamp);
+            }
+            return eventIndex.overlapping(from, to);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Returns the other events in this list whose time spans overlap that of {@code e}.
+     *
+     * @param e Event with timestamps.
+     * @return Conflicting events ordered by start, not including {@code e}.
+     */
+    public List<Event> conflictsWith(Event e) {
+        assert e.getStart() != null : "event must have timestamps";
+        long stamp = lock.readLock();
+        try {
+            if (eventIndex == null) {
+                stamp = buildDateIndexes(stamp);
+            }
+            return eventIndex.overlapping(e);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /** Builds the deadline and event indexes while holding a read lock; returns the stamp of the lock now held. */
+    private long buildDateIndexes(long readStamp) {
+        long stamp = toWriteLock(readStamp);
+        if (deadlineIndex == null) {
+            DeadlineIndex deadlines = new DeadlineIndex();
+            EventIndex events = new EventIndex();
+            for (Task t : tasks) {
+                deadlines.add(t);
+                events.add(t);
+            }
+            deadlineIndex = deadlines;
+            eventIndex = events;
+        }
+        return stamp;
+    }
+
+    /**
+     * Takes the read lock, or the write lock while some tasks are still unparsed, because
+     * reaching one of those parses it into the tree.
+     */
+    private long readLockParsing() {
+        long stamp = lock.readLock();
+        return tasks.isPartlyParsed() ? toWriteLock(stamp) : stamp;
+    }
+
+    /** Trades a read lock for the write lock, waiting for other readers if it cannot upgrade in place. */
+    private long toWriteLock(long readStamp) {
+        long stamp = lock.tryConvertToWriteLock(readStamp);
+        if (stamp == 0L) {
+            lock.unlockRead(readStamp);
+            stamp = lock.writeLock();
+        }
+        return stamp;
+    }
+
+    /**
+     * Returns an unmodifiable live view of the tasks in list order.
+     * Iterating the view is linear; {@code get(i)} costs O(log n). The view is meant for the
+     * thread making changes, such as a storage persisting them; other threads should use
+     * {@link #snapshot()}.
      *
      * @return Unmodifiable list of tasks.
      */
     public List<Task> asList() {
-        return java.util.Collections.unmodifiableList(tasks);
+        return new AbstractList<>() {
+            @Override
+            public Task get(int i) {
+                return tasks.get(i);
+            }
+
+            @Override
+            public int size() {
+                return tasks.size();
+            }
+
+            @Override
+            public Iterator<Task> iterator() {
+                return tasks.iterator();
+            }
+        };
+    }
+
+    /**
+     * Returns an immutable copy of the tasks in list order, taken between two changes.
+     *
+     * @return Consistent copy of the list.
+     */
+    public List<Task> snapshot() {
+        long stamp = readLockParsing();
+        try {
+            return List.copyOf(asList());
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Returns an immutable copy of the tasks from {@code from} up to but excluding {@code to}.
+     *
+     * @param from First index, inclusive.
+     * @param to   Last index, exclusive; at most {@link #size()}.
+     * @return Consistent copy of that part of the list.
+     */
+    public List<Task> snapshot(int from, int to) {
+        long stamp = readLockParsing();
+        try {
+            assert 0 <= from && from <= to && to <= tasks.size() : "range out of bounds";
+            List<Task> part = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                part.add(tasks.get(i));
+            }
+            return List.copyOf(part);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Remembers the current tasks and their done states so a later {@link #rollback()}
+     * can restore them. Replaces any earlier checkpoint.
+     */
+    public void checkpoint() {
+        history.mark();
+        long stamp = lock.writeLock();
+        try {
+            List<Task> snapshot = new ArrayList<>(tasks.size());
+            boolean[] done = new boolean[tasks.size()];
+            for (Task t : tasks) {
+                done[snapshot.size()] = t.isDone();
+                snapshot.add(t);
+            }
+            checkpoint = new Checkpoint(snapshot, done);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Forgets the current checkpoint, keeping all changes made since. */
+    public void releaseCheckpoint() {
+        history.clearMark();
+        long stamp = lock.writeLock();
+        try {
+            checkpoint = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Restores the tasks and done states recorded by the last {@link #checkpoint()}, and forgets
+     * the changes recorded in {@link #getHistory()} since. Does nothing if there is no checkpoint.
+     */
+    public void rollback() {
+        history.rewind();
+        long stamp = lock.writeLock();
+        try {
+            if (checkpoint == null) {
+                return;
+            }
+            tasks = new TaskOrder(checkpoint.tasks);
+            for (int i = 0; i < checkpoint.done.length; i++) {
+                Task t = checkpoint.tasks.get(i);
+                if (checkpoint.done[i]) {
+                    t.mark();
+                } else {
+                    t.unmark();
+                }
+            }
+            checkpoint = null;
+            searchIndex = null;
+            deadlineIndex = null;
+            eventIndex = null;
+            dropListing();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the changes made to this list that can be undone.
+     *
+     * @return The list's history.
+     */
+    public History getHistory() {
+        return history;
     }
 
     /**
@@ -78,16 +616,83 @@ public class TaskList {
      * @return Rendered list, or a friendly message if empty.
      */
     public String render() {
-        if (tasks.isEmpty()) {
-            return "Your list is empty! Add some tasks first :))";
+        long stamp = lock.readLock();
+        try {
+            if (tasks.size() == 0) {
+                return EMPTY_MESSAGE;
+            }
+            String text = listingText;
+            if (text != null) {
+                return text;
+            }
+            stamp = toWriteLock(stamp);
+            if (listing == null) {
+                listing = new StringBuilder(LIST_HEADER);
+                rowStarts = new int[Math.max(16, tasks.size())];
+                int i = 0;
+                for (Task t : tasks) {
+                    appendRow(i++, t);
+                }
+            }
+            if (listingText == null) {
+                listingText = listing.toString();
+            }
+            return listingText;
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Renders the tasks from {@code from} up to but excluding {@code to}, numbered by their
+     * position in the whole list.
+     *
+     * @param from First index, inclusive.
+     * @param to   Last index, exclusive; at most {@link #size()}.
+     * @return The header followed by one line per task, or a friendly message if the list is empty.
+     */
+    public String render(int from, int to) {
+        long stamp = readLockParsing();
+        try {
+            if (tasks.size() == 0) {
+                return EMPTY_MESSAGE;
+            }
+            assert 0 <= from && from <= to && to <= tasks.size() : "range out of bounds";
+            StringBuilder sb = new StringBuilder(LIST_HEADER);
+            for (int i = from; i < to; i++) {
+                sb.append('\n').append(i + 1).append(". ").append(tasks.get(i));
+            }
+            return sb.toString();
+        } finally {
+            lock.unlock(stamp);
         }
-        StringBuilder sb = new StringBuilder();
-        sb.append("Here are the tasks in your list:\n");
+    }
 
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append(i + 1).append(". ").append(tasks.get(i)).append("\n");
+    /** Adds the line for the task at index {@code i}, which must be the last, to {@link #listing}. */
+    private void appendRow(int i, Task t) {
+        if (i == rowStarts.length) {
+            rowStarts = Arrays.copyOf(rowStarts, i + (i >> 1));
         }
-        return sb.toString().trim();
+        listing.append('\n').append(i + 1).append(". ");
+        rowStarts[i] = listing.length();
+        listing.append(t);
+        listingText = null;
     }
 
+    private void dropListing() {
+        listing = null;
+        rowStarts = null;
+        listingText = null;
+    }
+
+    /** Task references and done flags captured by {@link #checkpoint()}. */
+    private static final class Checkpoint {
+        private final List<Task> tasks;
+        private final boolean[] done;
+
+        Checkpoint(List<Task> tasks, boolean[] done) {
+            this.tasks = tasks;
+            this.done = done;
+        }
+    }
 }
@@ -0,0 +1,397 @@
+package pip.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Sequence of tasks supporting positional get, insert and remove in O(log n) expected time,
+ * plus O(1) lookup of a task and O(log n) lookup of its position by id.
+ * <p>
+ * The sequence is an implicit treap: nodes are ordered by position, each node stores the
+ * size of its subtree so a position can be found by descending from the root, and random
+ * heap priorities keep the tree balanced. Parent links let a node's position be recovered by
+ * walking up to the root, so {@link #indexOf(long)} needs no scan.
+ * <p>
+ * A sequence opened on a {@link TaskSource} starts as a single node standing for every saved
+ * task. A node like that holds a run of tasks that have not been parsed; looking up a position
+ * inside the run splits it and parses just that task. Iterating parses everything that is left.
+ * Tasks that are still unparsed have never been handed out, so they need no id.
+ */
+final class TaskOrder implements Iterable<Task> {
+    private final Map<Long, Node> byId = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+    /** Where unparsed tasks come from; {@code null} once every task has been parsed. */
+    private TaskSource source;
+    private int unparsed;
+
+    /**
+     * Builds a sequence holding {@code tasks} in order, in linear time.
+     *
+     * @param tasks Initial tasks; ids must be distinct.
+     */
+    TaskOrder(List<Task> tasks) {
+        root = build(tasks);
+    }
+
+    /**
+     * Builds a sequence of the tasks in {@code source} in constant time, parsing none of them.
+     *
+     * @param source Saved tasks.
+     */
+    TaskOrder(TaskSource source) {
+        int n = source.size();
+        if (n > 0) {
+            this.source = source;
+            this.unparsed = n;
+            this.root = new Node(0, n, random.nextInt());
+        }
+    }
+
+    /** Builds a balanced tree of {@code tasks} in linear time and registers their ids. */
+    private Node build(List<Task> tasks) {
+        // Right spine of the Cartesian tree built so far, deepest node last.
+        ArrayDeque<Node> spine = new ArrayDeque<>();
+        for (Task t : tasks) {
+            Node n = newNode(t);
+            Node last = null;
+            while (!spine.isEmpty() && spine.peekLast().priority < n.priority) {
+                last = spine.pollLast();
+            }
+            n.left = last;
+            if (!spine.isEmpty()) {
+                spine.peekLast().right = n;
+            }
+            spine.addLast(n);
+        }
+        Node top = spine.peekFirst();
+        if (top != null) {
+            fixSizes(top);
+            top.parent = null;
+        }
+        return top;
+    }
+
+    /**
+     * Returns whether some tasks have not been parsed yet, so that reads may still change the tree.
+     *
+     * @return {@code true} until every task from the source has been parsed.
+     */
+    boolean isPartlyParsed() {
+        return source != null;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the task at position {@code i}.
+     *
+     * @param i Zero-based position.
+     * @return Task at that position.
+     */
+    Task get(int i) {
+        Node n = nodeAt(i);
+        return n.task != null ? n.task : parse(n, i).task;
+    }
+
+    /**
+     * Returns the task with the given id, or {@code null} if it is not in the sequence.
+     *
+     * @param id Task id.
+     * @return Task or {@code null}.
+     */
+    Task byId(long id) {
+        Node n = byId.get(id);
+        return n == null ? null : n.task;
+    }
+
+    /**
+     * Returns the position of the task with the given id.
+     *
+     * @param id Task id.
+     * @return Zero-based position, or -1 if the id is not in the sequence.
+     */
+    int indexOf(long id) {
+        Node n = byId.get(id);
+        return n == null ? -1 : position(n);
+    }
+
+    /**
+     * Inserts {@code t} so that it ends up at position {@code i}.
+     *
+     * @param i Zero-based position, from 0 to {@link #size()} inclusive.
+     * @param t Task whose id is not already present.
+     */
+    void add(int i, Task t) {
+        assert !byId.containsKey(t.getId()) : "task is already in the list";
+        Node[] parts = split(root, i);
+        root = merge(merge(parts[0], newNode(t)), parts[1]);
+        root.parent = null;
+    }
+
+    /**
+     * Removes and returns the task at position {@code i}.
+     *
+     * @param i Zero-based position.
+     * @return The removed task.
+     */
+    Task remove(int i) {
+        get(i);
+        Node[] left = split(root, i);
+        Node[] mid = split(left[1], 1);
+        Node removed = mid[0];
+        root = merge(left[0], mid[1]);
+        if (root != null) {
+            root.parent = null;
+        }
+        byId.remove(removed.task.getId());
+        return removed.task;
+    }
+
+    /** Iterates in position order in O(1) amortized time per step. */
+    @Override
+    public Iterator<Task> iterator() {
+        if (source != null) {
+            parseAll();
+        }
+        return new Iterator<>() {
+            private Node next = leftmost(root);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Task t = next.task;
+                next = successor(next);
+                return t;
+            }
+        };
+    }
+
+    /**
+     * Parses the task at position {@code i}, which lies in the unparsed run {@code run}, and
+     * splits it out of the run into a node of its own. The source is read before the tree is
+     * touched, so a record that fails to parse leaves the sequence as it was.
+     */
+    private Node parse(Node run, int i) {
+        Task t = source.load(run.first + i - position(run));
+        Node[] before = split(root, i);
+        Node[] at = split(before[1], 1);
+        Node n = at[0];
+        assert n.task == null && n.count == 1 : "expected an unparsed task of its own";
+        n.task = t;
+        Node old = byId.put(t.getId(), n);
+        assert old == null : "duplicate task id " + t.getId();
+        root = merge(merge(before[0], n), at[1]);
+        root.parent = null;
+        if (--unparsed == 0) {
+            source = null;
+        }
+        return n;
+    }
+
+    /** Parses every task not parsed yet and rebuilds the tree over the whole sequence. */
+    private void parseAll() {
+        List<Task> all = new ArrayList<>(size());
+        for (Node n = leftmost(root); n != null; n = successor(n)) {
+            if (n.task != null) {
+                all.add(n.task);
+                continue;
+            }
+            for (int r = n.first; r < n.first + n.count; r++) {
+                all.add(source.load(r));
+            }
+        }
+        byId.clear();
+        root = build(all);
+        source = null;
+        unparsed = 0;
+    }
+
+    /** Returns the position of the first task held by {@code n}. */
+    private int position(Node n) {
+        int pos = size(n.left);
+        for (Node c = n; c.parent != null; c = c.parent) {
+            if (c == c.parent.right) {
+                pos += size(c.parent.left) + c.parent.count;
+            }
+        }
+        return pos;
+    }
+
+    private Node newNode(Task t) {
+        Node n = new Node(t, random.nextInt());
+        Node old = byId.put(t.getId(), n);
+        assert old == null : "duplicate task id " + t.getId();
+        return n;
+    }
+
+    private Node nodeAt(int i) {
+        assert i >= 0 && i < size() : "index out of range";
+        Node n = root;
+        int k = i;
+        while (true) {
+            int leftSize = size(n.left);
+            if (k < leftSize) {
+                n = n.left;
+            } else if (k < leftSize + n.count) {
+                return n;
+            } else {
+                k -= leftSize + n.count;
+                n = n.right;
+            }
+        }
+    }
+
+    /** Splits {@code n} into the first {@code k} tasks and the rest, cutting an unparsed run if needed. */
+    private Node[] split(Node n, int k) {
+        if (n == null) {
+            return new Node[2];
+        }
+        int leftSize = size(n.left);
+        if (k <= leftSize) {
+            Node[] parts = split(n.left, k);
+            n.left = parts[1];
+            update(n);
+            parts[1] = n;
+            if (parts[0] != null) {
+                parts[0].parent = null;
+            }
+            return parts;
+        }
+        if (k >= leftSize + n.count) {
+            Node[] parts = split(n.right, k - leftSize - n.count);
+            n.right = parts[0];
+            update(n);
+            parts[0] = n;
+            if (parts[1] != null) {
+                parts[1].parent = null;
+            }
+            return parts;
+        }
+
+        // k falls inside the unparsed run held by n: n keeps its head, a new node takes the tail.
+        int cut = k - leftSize;
+        Node tail = new Node(n.first + cut, n.count - cut, random.nextInt());
+        Node right = n.right;
+        n.count = cut;
+        n.right = null;
+        update(n);
+        if (right != null) {
+            right.parent = null;
+        }
+        Node rest = merge(tail, right);
+        rest.parent = null;
+        return new Node[] {n, rest};
+    }
+
+    /** Concatenates two trees; every node of {@code a} precedes every node of {@code b}. */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static void update(Node n) {
+        n.size = n.count + size(n.left) + size(n.right);
+        if (n.left != null) {
+            n.left.parent = n;
+        }
+        if (n.right != null) {
+            n.right.parent = n;
+        }
+    }
+
+    /** Recomputes sizes and parent links bottom-up without recursion. */
+    private static void fixSizes(Node top) {
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        ArrayDeque<Node> postOrder = new ArrayDeque<>();
+        stack.push(top);
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            postOrder.push(n);
+            if (n.left != null) {
+                stack.push(n.left);
+            }
+            if (n.right != null) {
+                stack.push(n.right);
+            }
+        }
+        while (!postOrder.isEmpty()) {
+            update(postOrder.pop());
+        }
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static Node leftmost(Node n) {
+        Node c = n;
+        while (c != null && c.left != null) {
+            c = c.left;
+        }
+        return c;
+    }
+
+    private static Node successor(Node n) {
+        if (n.right != null) {
+            return leftmost(n.right);
+        }
+        Node c = n;
+        while (c.parent != null && c == c.parent.right) {
+            c = c.parent;
+        }
+        return c.parent;
+    }
+
+    /** Tree node holding one task, or a run of {@code count} unparsed tasks starting at {@code first}. */
+    private static final class Node {
+        private Task task;
+        private final int priority;
+        private final int first;
+        private int count = 1;
+        private Node left;
+        private Node right;
+        private Node parent;
+        private int size = 1;
+
+        Node(Task task, int priority) {
+            this.task = task;
+            this.priority = priority;
+            this.first = -1;
+        }
+
+        Node(int first, int count, int priority) {
+            this.priority = priority;
+            this.first = first;
+            this.count = count;
+            this.size = count;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package pip.model;
+
+/**
+ * Saved tasks that can be parsed one at a time, so a {@link TaskList} can start before any of
+ * them is read and build each task the first time it is used.
+ */
+public interface TaskSource {
+    /**
+     * Returns the number of tasks in the source.
+     *
+     * @return Task count; fixed for the life of the source.
+     */
+    int size();
+
+    /**
+     * Parses the task at the given position. Each position is loaded at most once by a list.
+     *
+     * @param i Zero-based position.
+     * @return A new task.
+     * @throws IllegalStateException If the saved record cannot be read or parsed.
+     */
+    Task load(int i);
+}
@@ -12,8 +12,8 @@ public class Todo extends Task {
     }
 
     @Override
-    public String toString() {
-        return "[T]" + super.toString();
+    protected String render() {
+        return "[T]" + super.render();
     }
 
     @Override
@@ -0,0 +1,63 @@
+package pip.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/** File operations that leave either the old or the new contents on disk, never a mix. */
+final class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    /**
+     * Renames {@code tmp} over {@code target} in a single step.
+     *
+     * @param tmp    Fully written replacement, in the same directory as {@code target}.
+     * @param target File to replace.
+     * @param isSync Whether to force the new contents and the rename to disk.
+     * @throws IOException If the rename fails.
+     */
+    static void replace(Path tmp, Path target, boolean isSync) throws IOException {
+        if (isSync) {
+            force(tmp);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (isSync) {
+            forceDirectory(target);
+        }
+    }
+
+    /**
+     * Forces the contents of {@code file} to disk.
+     *
+     * @param file Existing file.
+     * @throws IOException If the file cannot be opened or synced.
+     */
+    static void force(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Forces the directory entry of {@code file} to disk, so a rename survives a power failure.
+     *
+     * @param file File whose parent directory is synced.
+     */
+    static void forceDirectory(Path file) {
+        Path dir = file.toAbsolutePath().getParent();
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            // Some platforms cannot open a directory; there the rename is made durable by the OS.
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package pip.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import pip.app.PipException;
+import pip.model.Deadline;
+import pip.model.Event;
+import pip.model.Task;
+import pip.model.Todo;
+
+/**
+ * Reads and writes the binary save format.
+ * <p>
+ * A file starts with the magic bytes {@code PIPB} and a version byte, followed by one
+ * record per task: the type tag as one ASCII byte, a flags byte (bit 0 is the done flag),
+ * and the type-specific fields. Strings are UTF-8 prefixed by their byte length as an
+ * unsigned varint, so no escaping is needed. A deadline stores {@code by} as
+ * seconds since the epoch in UTC, as a zigzag varint.
+ * <p>
+ * Records are not framed, so reading cannot resume after a damaged one: the tasks before it
+ * are kept and the remaining bytes are handed back, Base64-encoded, for quarantine.
+ */
+final class BinaryTaskCodec {
+    static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'P', 'I', 'P', 'B'};
+    private static final int FLAG_DONE = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Marks a quarantined record as Base64-encoded binary data rather than a text line. */
+    private static final String BINARY_PREFIX = "base64:";
+
+    private BinaryTaskCodec() {
+    }
+
+    /**
+     * Returns whether {@code file} starts with the binary format's magic bytes.
+     *
+     * @param file Existing file.
+     * @return {@code true} if the file is in the binary format.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            while (head.hasRemaining()) {
+                if (ch.read(head) < 0) {
+                    return false;
+                }
+            }
+            return head.flip().equals(ByteBuffer.wrap(MAGIC));
+        }
+    }
+
+    /**
+     * Writes {@code items} to {@code file}, replacing its contents.
+     *
+     * @param file  Destination file.
+     * @param items Tasks in list order.
+     * @throws IOException If writing fails.
+     */
+    static void write(Path file, List<Task> items) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+            out.write(MAGIC);
+            out.write(VERSION);
+            for (Task t : items) {
+                out.write(t.typeTag().charAt(0));
+                out.write(t.isDone() ? FLAG_DONE : 0);
+                writeString(out, t.getDescription());
+                if (t instanceof Deadline) {
+                    writeVarLong(out, zigzag(((Deadline) t).getBy().toEpochSecond(ZoneOffset.UTC)));
+                } else if (t instanceof Event) {
+                    writeString(out, ((Event) t).getFrom());
+                    writeString(out, ((Event) t).getTo());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads every task from a binary save file.
+     *
+     * @param file     File starting with the binary header.
+     * @param rejected Receives the undecodable tail of the file, if any, as one Base64 line.
+     * @return Tasks in file order, up to the first damaged record.
+     * @throws IOException  If the file cannot be read.
+     * @throws PipException If the header is malformed.
+     */
+    static List<Task> read(Path file, List<String> rejected) throws IOException, PipException {
+        List<Task> out = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input in = new Input(ch);
+            for (byte b : MAGIC) {
+                if (in.readByte() != b) {
+                    throw new PipException("Not a binary save file.");
+                }
+            }
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new PipException("Unsupported save file version: " + version);
+            }
+            while (in.hasMore()) {
+                long start = in.position();
+                try {
+                    out.add(readTask(in));
+                } catch (PipException e) {
+                    rejected.add(BINARY_PREFIX + Base64.getEncoder().encodeToString(tail(ch, start)));
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static byte[] tail(FileChannel ch, long from) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(ch.size() - from, Integer.MAX_VALUE - 8));
+        while (bytes.hasRemaining()) {
+            if (ch.read(bytes, from + bytes.position()) < 0) {
+                break;
+            }
+        }
+        return Arrays.copyOf(bytes.array(), bytes.position());
+    }
+
+    private static Task readTask(Input in) throws IOException, PipException {
+        char type = (char) in.readByte();
+        boolean isDone = (in.readByte() & FLAG_DONE) != 0;
+        String desc = in.readString();
+        Task t;
+        switch (type) {
+        case 'T':
+            t = new Todo(desc);
+            break;
+        case 'D':
+            long epochSecond = unzigzag(in.readVarLong());
+            t = new Deadline(desc, LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC));
+            break;
+        case 'E':
+            t = new Event(desc, in.readString(), in.readString());
+            break;
+        default:
+            throw new PipException("Unknown task type: " + type);
+        }
+        if (isDone) {
+            t.mark();
+        }
+        return t;
+    }
+
+    private static void writeString(OutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarLong(OutputStream out, long v) throws IOException {
+        long rest = v;
+        while ((rest & ~0x7FL) != 0) {
+            out.write((int) ((rest & 0x7F) | 0x80));
+            rest >>>= 7;
+        }
+        out.write((int) rest);
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** Buffered reader over a channel that refills on demand. */
+    private static final class Input {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        private byte[] scratch = new byte[256];
+
+        Input(FileChannel ch) {
+            this.ch = ch;
+            buf.limit(0);
+        }
+
+        /** Returns the file offset of the next byte to be read. */
+        long position() throws IOException {
+            return ch.position() - buf.remaining();
+        }
+
+        boolean hasMore() throws IOException {
+            return buf.hasRemaining() || fill(1);
+        }
+
+        int readByte() throws IOException, PipException {
+            require(1);
+            return buf.get() & 0xFF;
+        }
+
+        long readVarLong() throws IOException, PipException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+            throw new PipException("Corrupted save file: varint too long.");
+        }
+
+        String readString() throws IOException, PipException {
+            long len = readVarLong();
+            if (len < 0 || len > Integer.MAX_VALUE) {
+                throw new PipException("Corrupted save file: bad string length.");
+            }
+            int n = (int) len;
+            if (n > scratch.length) {
+                scratch = new byte[Math.max(n, scratch.length * 2)];
+            }
+            int copied = 0;
+            while (copied < n) {
+                require(1);
+                int chunk = Math.min(n - copied, buf.remaining());
+                buf.get(scratch, copied, chunk);
+                copied += chunk;
+            }
+            return new String(scratch, 0, n, StandardCharsets.UTF_8);
+        }
+
+        private void require(int n) throws IOException, PipException {
+            if (buf.remaining() < n && !fill(n)) {
+                throw new PipException("Corrupted save file: unexpected end of file.");
+            }
+        }
+
+        /** Reads more bytes until at least {@code n} are buffered; returns false at end of file. */
+        private boolean fill(int n) throws IOException {
+            buf.compact();
+            try {
+                while (buf.position() < n) {
+                    if (ch.read(buf) < 0) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                buf.flip();
+            }
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package pip.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import pip.app.PipException;
+import pip.metrics.Metrics;
+import pip.model.Task;
+import pip.model.TaskSource;
+
+/**
+ * Storage that records each change as a small delta in an append-only journal
+ * instead of rewriting the whole save file.
+ * <p>
+ * The save file acts as a snapshot whose first line is {@code #epoch N}; journal files
+ * named {@code <file>.journal-<epoch>} hold the changes made after it. Loading replays
+ * every journal newer than the snapshot. Once the active journal grows past a size
+ * threshold it is sealed and folded into a new snapshot on a background thread.
+ * <p>
+ * Journal records are one per line and refer to tasks by their position at the time of
+ * the change: {@code + <data line>}, {@code I <index> <data line>}, {@code M <index>},
+ * {@code U <index>}, {@code - <index>}.
+ * A record that is malformed or names a position that does not exist is quarantined and skipped.
+ */
+public class JournaledStorage extends Storage {
+    /** System property overriding the journal size (in bytes) that triggers compaction. */
+    public static final String MAX_BYTES_PROPERTY = "pip.journal.maxBytes";
+
+    private static final long DEFAULT_MAX_JOURNAL_BYTES = 1L << 20;
+    private static final String EPOCH_HEADER = COMMENT_PREFIX + "epoch ";
+    private static final String JOURNAL_INFIX = ".journal-";
+
+    private static final char OP_ADD = '+';
+    private static final char OP_INSERT = 'I';
+    private static final char OP_MARK = 'M';
+    private static final char OP_UNMARK = 'U';
+    private static final char OP_DELETE = '-';
+
+    private final long maxJournalBytes;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pip-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel journal;
+    private long journalBytes;
+    private long epoch;
+    private Future<?> pendingCompaction;
+
+    /**
+     * Constructs a journaled storage using the compaction threshold from
+     * {@value #MAX_BYTES_PROPERTY}, or 1 MiB if unset.
+     *
+     * @param filePath Path to the snapshot file.
+     */
+    public JournaledStorage(String filePath) {
+        this(filePath, Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_JOURNAL_BYTES));
+    }
+
+    /**
+     * Constructs a journaled storage with an explicit compaction threshold.
+     *
+     * @param filePath        Path to the snapshot file.
+     * @param maxJournalBytes Journal size after which a compaction is started.
+     */
+    public JournaledStorage(String filePath, long maxJournalBytes) {
+        super(filePath);
+        assert maxJournalBytes > 0 : "threshold must be positive";
+        this.maxJournalBytes = maxJournalBytes;
+    }
+
+    /**
+     * Loads the snapshot and replays every newer journal on top of it.
+     *
+     * @return Tasks as of the last recorded change.
+     * @throws PipException If a file cannot be read.
+     */
+    @Override
+    public List<Task> load() throws PipException {
+        List<Task> out = super.load();
+        try {
+            long snapshotEpoch = readSnapshotEpoch();
+            TreeMap<Long, Path> journals = listJournals();
+            List<String> rejected = new ArrayList<>();
+            for (var entry : journals.entrySet()) {
+                if (entry.getKey() <= snapshotEpoch) {
+                    // Already folded into the snapshot; a crash interrupted its cleanup.
+                    Files.deleteIfExists(entry.getValue());
+                    continue;
+                }
+                replay(entry.getValue(), out, rejected);
+            }
+            quarantine(rejected);
+            long latest = journals.isEmpty() ? snapshotEpoch : Math.max(snapshotEpoch, journals.lastKey());
+            openJournal(latest == snapshotEpoch ? snapshotEpoch + 1 : latest);
+            return out;
+        } catch (IOException e) {
+            throw new PipException("Failed to read save file.");
+        }
+    }
+
+    /**
+     * Replays every journal into the snapshot and deletes them, leaving a save file that any
+     * storage mode reads in full. Used when Pip starts in another mode after a session in this one.
+     *
+     * @return Tasks as of the last recorded change.
+     * @throws PipException If a file cannot be read or written.
+     */
+    List<Task> fold() throws PipException {
+        List<Task> out = load();
+        try {
+            journal.close();
+            journal = null;
+            writeSnapshotFile(out, epoch);
+            AtomicFiles.force(dataFile);
+            AtomicFiles.forceDirectory(dataFile);
+            deleteJournalsUpTo(epoch);
+            return out;
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    /**
+     * Returns whether any journal of {@code dataFile} exists.
+     *
+     * @param dataFile The save file.
+     * @return {@code true} if a session in journal mode left a journal beside it.
+     * @throws IOException If the directory cannot be listed.
+     */
+    static boolean hasJournals(Path dataFile) throws IOException {
+        Path dir = dataFile.toAbsolutePath().getParent();
+        if (dir == null || Files.notExists(dir)) {
+            return false;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, dataFile.getFileName() + JOURNAL_INFIX + "*")) {
+            return ds.iterator().hasNext();
+        }
+    }
+
+    /** The journals are this storage's own; only segments are adopted. */
+    @Override
+    protected void adoptOtherModes() throws PipException {
+        adoptSegments();
+    }
+
+    /** Journals must be replayed on top of the snapshot, so tasks are always loaded eagerly. */
+    @Override
+    protected TaskSource openLazily() {
+        return null;
+    }
+
+    /**
+     * Forces the journal and the snapshot to disk if the sync policy has left writes unforced.
+     *
+     * @throws PipException If syncing fails.
+     */
+    @Override
+    public void flush() throws PipException {
+        if (!takePendingSync()) {
+            return;
+        }
+        try {
+            if (journal != null) {
+                journal.force(false);
+            }
+            if (Files.exists(dataFile)) {
+                AtomicFiles.force(dataFile);
+                AtomicFiles.forceDirectory(dataFile);
+            }
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    /**
+     * Writes a fresh snapshot of {@code items} and discards all journals it supersedes.
+     *
+     * @param items Tasks to persist.
+     * @throws PipException If writing fails for any reason.
+     */
+    @Override
+    public void save(List<Task> items) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        awaitCompaction();
+        try {
+            long start = System.nanoTime();
+            long sealed = sealJournal();
+            writeSnapshot(List.copyOf(items), sealed);
+            recordTiming(Metrics.OP_SAVE, start, 0);
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    @Override
+    public void saveAdded(List<Task> items, Task added) throws PipException {
+        append(OP_ADD + " " + added.toDataString(), items);
+    }
+
+    @Override
+    public void saveInserted(List<Task> items, int index) throws PipException {
+        if (index == items.size() - 1) {
+            saveAdded(items, items.get(index));
+            return;
+        }
+        append(OP_INSERT + " " + index + " " + items.get(index).toDataString(), items);
+    }
+
+    @Override
+    public void saveUpdated(List<Task> items, int index) throws PipException {
+        char op = items.get(index).isDone() ? OP_MARK : OP_UNMARK;
+        append(op + " " + index, items);
+    }
+
+    @Override
+    public void saveRemoved(List<Task> items, int index) throws PipException {
+        append(OP_DELETE + " " + index, items);
+    }
+
+    /** Appends one record to the active journal and starts a compaction if it grew too large. */
+    private void append(String record, List<Task> items) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            if (journal == null) {
+                openJournal(readSnapshotEpoch() + 1);
+            }
+            byte[] bytes = (record + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) {
+                journal.write(buf);
+            }
+            journalBytes += bytes.length;
+            if (isSyncDue()) {
+                journal.force(false);
+            }
+            recordTiming(Metrics.OP_APPEND, start, journalBytes);
+            if (journalBytes >= maxJournalBytes && isCompactionIdle()) {
+                long sealed = sealJournal();
+                List<Task> snapshot = List.copyOf(items);
+                pendingCompaction = compactor.submit(() -> {
+                    writeSnapshot(snapshot, sealed);
+                    return null;
+                });
+            }
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    private boolean isCompactionIdle() {
+        return pendingCompaction == null || pendingCompaction.isDone();
+    }
+
+    private void awaitCompaction() throws PipException {
+        if (pendingCompaction == null) {
+            return;
+        }
+        try {
+            pendingCompaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipException("Interrupted while compacting the journal.");
+        } catch (ExecutionException e) {
+            throw new PipException("Failed to compact the journal.");
+        } finally {
+            pendingCompaction = null;
+        }
+    }
+
+    /**
+     * Closes the active journal and opens the next one.
+     *
+     * @return Epoch of the journal that was sealed; a snapshot taken now covers it.
+     */
+    private long sealJournal() throws IOException {
+        long sealed = journal == null ? readSnapshotEpoch() : epoch;
+        if (journal != null) {
+            journal.close();
+        }
+        openJournal(sealed + 1);
+        return sealed;
+    }
+
+    private void openJournal(long newEpoch) throws IOException {
+        this.epoch = newEpoch;
+        Path p = journalPath(newEpoch);
+        dropTornTail(p);
+        this.journal = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.journalBytes = journal.size();
+    }
+
+    /**
+     * Cuts a journal back to its last complete record, so a record cut off by a crash is not
+     * joined to the next one appended after it.
+     */
+    private static void dropTornTail(Path journalFile) throws IOException {
+        if (Files.notExists(journalFile)) {
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long end = ch.size();
+            while (end > 0) {
+                one.clear();
+                ch.read(one, end - 1);
+                if (one.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < ch.size()) {
+                ch.truncate(end);
+                ch.force(false);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code items} as the snapshot covering all journals up to {@code coveredEpoch},
+     * then deletes those journals.
+     */
+    private void writeSnapshot(List<Task> items, long coveredEpoch) throws IOException {
+        writeSnapshotFile(items, coveredEpoch);
+        deleteJournalsUpTo(coveredEpoch);
+    }
+
+    private void deleteJournalsUpTo(long coveredEpoch) throws IOException {
+        for (var entry : listJournals().headMap(coveredEpoch, true).entrySet()) {
+            Files.deleteIfExists(entry.getValue());
+        }
+    }
+
+    private void writeSnapshotFile(List<Task> items, long coveredEpoch) throws IOException {
+        if (Files.notExists(dataDir)) {
+            Files.createDirectories(dataDir);
+        }
+        Path tmp = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            w.write(EPOCH_HEADER + coveredEpoch);
+            w.newLine();
+            for (Task t : items) {
+                w.write(t.toDataString());
+                w.newLine();
+            }
+        }
+        replaceDataFile(tmp);
+    }
+
+    /**
+     * Reads the epoch from the snapshot's header. A file without one, including a binary save
+     * file written in another storage mode, covers no journal and so has epoch 0.
+     */
+    private long readSnapshotEpoch() throws IOException {
+        if (Files.notExists(dataFile) || BinaryTaskCodec.isBinary(dataFile)) {
+            return 0;
+        }
+        try (BufferedReader r = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
+            String first = r.readLine();
+            if (first == null || !first.startsWith(EPOCH_HEADER)) {
+                return 0;
+            }
+            try {
+                return Long.parseLong(first.substring(EPOCH_HEADER.length()).trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    private TreeMap<Long, Path> listJournals() throws IOException {
+        TreeMap<Long, Path> found = new TreeMap<>();
+        if (Files.notExists(dataDir)) {
+            return found;
+        }
+        String prefix = dataFile.getFileName() + JOURNAL_INFIX;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dataDir, prefix + "*")) {
+            for (Path p : ds) {
+                try {
+                    found.put(Long.parseLong(p.getFileName().toString().substring(prefix.length())), p);
+                } catch (NumberFormatException e) {
+                    // Not one of ours; leave it alone.
+                }
+            }
+        }
+        return found;
+    }
+
+    private Path journalPath(long e) {
+        return dataFile.resolveSibling(dataFile.getFileName() + JOURNAL_INFIX + e);
+    }
+
+    /**
+     * Applies every complete record of a journal to {@code out}, adding those that cannot be
+     * applied to {@code rejected}. A trailing record without a newline was cut off by a crash;
+     * it is ignored here and cut off the file before anything is appended to it.
+     */
+    private static void replay(Path journalFile, List<Task> out, List<String> rejected) throws IOException {
+        String content = Files.readString(journalFile, StandardCharsets.UTF_8);
+        int start = 0;
+        int nl;
+        while ((nl = content.indexOf('\n', start)) >= 0) {
+            String record = content.substring(start, nl).trim();
+            start = nl + 1;
+            if (record.isEmpty()) {
+                continue;
+            }
+            try {
+                apply(record, out);
+            } catch (PipException e) {
+                rejected.add(record);
+            }
+        }
+    }
+
+    private static void apply(String record, List<Task> out) throws PipException {
+        String arg = record.length() > 1 ? record.substring(1).trim() : "";
+        switch (record.charAt(0)) {
+        case OP_ADD:
+            out.add(Task.fromDataString(arg));
+            break;
+        case OP_INSERT:
+            insert(arg, out, record);
+            break;
+        case OP_MARK:
+            out.get(recordIndex(arg, out.size(), record)).mark();
+            break;
+        case OP_UNMARK:
+            out.get(recordIndex(arg, out.size(), record)).unmark();
+            break;
+        case OP_DELETE:
+            out.remove(recordIndex(arg, out.size(), record));
+            break;
+        default:
+            throw new PipException("Corrupted journal line: " + record);
+        }
+    }
+
+    /** Applies {@code <index> <data line>}, which may name any position up to the end of the list. */
+    private static void insert(String arg, List<Task> out, String record) throws PipException {
+        int space = arg.indexOf(' ');
+        if (space < 0) {
+            throw new PipException("Corrupted journal line: " + record);
+        }
+        Task inserted = Task.fromDataString(arg.substring(space + 1).trim());
+        out.add(recordIndex(arg.substring(0, space), out.size() + 1, record), inserted);
+    }
+
+    /** Parses the position a record names, which must be below {@code limit}. */
+    private static int recordIndex(String arg, int limit, String record) throws PipException {
+        try {
+            int idx = Integer.parseInt(arg);
+            if (idx < 0 || idx >= limit) {
+                throw new PipException("Corrupted journal line: " + record);
+            }
+            return idx;
+        } catch (NumberFormatException e) {
+            throw new PipException("Corrupted journal line: " + record);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package pip.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import pip.app.PipException;
+import pip.model.Task;
+import pip.model.TaskSource;
+
+/**
+ * Text save file opened for parsing on demand: the file is memory-mapped and a table of line
+ * offsets says where each task starts, so opening it costs the same for ten tasks or a million.
+ * <p>
+ * The offsets come from a sidecar file next to the save file ({@code pip.txt.idx}), written
+ * whenever the list is saved in lazy mode. The sidecar records the size and modification time
+ * of the save file it describes, so it also vouches that every line was written by Pip and
+ * parses. If it is missing or out of date, for example after the file was edited by hand, the
+ * file is not opened lazily; it is loaded in full, which quarantines any bad lines, and the
+ * next save writes a fresh sidecar.
+ * <p>
+ * The mapping stays valid after a save renames a new file over the old one, so tasks not yet
+ * parsed are still read from the contents that were loaded.
+ */
+final class LazyTaskFile implements TaskSource {
+    private static final int MAGIC = 0x50495058; // "PIPX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final MappedByteBuffer data;
+    private final LongBuffer offsets;
+    private final MappedTaskReader reader = new MappedTaskReader();
+
+    private LazyTaskFile(MappedByteBuffer data, LongBuffer offsets) {
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Opens {@code file} for parsing on demand.
+     *
+     * @param file Existing text save file.
+     * @return The source, or {@code null} if the file has no current sidecar or cannot be mapped
+     *         whole, and must be loaded eagerly.
+     * @throws IOException If the file cannot be read.
+     */
+    static LazyTaskFile open(Path file) throws IOException {
+        if (!MappedTaskReader.CAN_MAP) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            LongBuffer offsets = readIndex(sidecarOf(file), size, modified);
+            if (offsets == null) {
+                return null;
+            }
+            return new LazyTaskFile(ch.map(FileChannel.MapMode.READ_ONLY, 0, size), offsets);
+        }
+    }
+
+    @Override
+    public int size() {
+        return offsets.limit();
+    }
+
+    @Override
+    public Task load(int i) {
+        int start = (int) offsets.get(i);
+        int end = start;
+        while (end < data.limit() && data.get(end) != '\n') {
+            end++;
+        }
+        try {
+            Task t = start == 0 || data.get(start - 1) == '\n' ? reader.parseRecord(data, start, end) : null;
+            if (t == null) {
+                throw new IllegalStateException("Save file index does not match line " + (i + 1));
+            }
+            return t;
+        } catch (PipException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the sidecar path for a save file.
+     *
+     * @param file Save file.
+     * @return {@code <file>.idx}.
+     */
+    static Path sidecarOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+    /**
+     * Writes the sidecar for {@code file}, whose task lines start at the given offsets.
+     * Must be called after {@code file} has its final contents and modification time.
+     *
+     * @param file    Save file just written.
+     * @param starts  Byte offset of each task line.
+     * @param count   Number of offsets in use.
+     * @throws IOException If the sidecar cannot be written.
+     */
+    static void writeIndex(Path file, long[] starts, int count) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + count * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION)
+                .putLong(Files.size(file))
+                .putLong(Files.getLastModifiedTime(file).toMillis())
+                .putInt(count).putInt(0);
+        buf.asLongBuffer().put(starts, 0, count);
+        Path sidecar = sidecarOf(file);
+        Path tmp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        Files.write(tmp, buf.array());
+        AtomicFiles.replace(tmp, sidecar, false);
+    }
+
+    /** Maps the offsets in {@code sidecar}, or returns {@code null} if it does not describe this save file. */
+    private static LongBuffer readIndex(Path sidecar, long size, long modified) throws IOException {
+        if (Files.notExists(sidecar)) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) {
+                return null;
+            }
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+            int count = buf.getInt(24);
+            boolean isCurrent = buf.getInt(0) == MAGIC && buf.getInt(4) == VERSION
+                    && buf.getLong(8) == size && buf.getLong(16) == modified
+                    && ch.size() == HEADER_BYTES + (long) count * Long.BYTES;
+            if (!isCurrent) {
+                return null;
+            }
+            return buf.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package pip.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import pip.app.PipException;
+import pip.model.Task;
+
+/**
+ * Reads a pipe-delimited save file by memory-mapping it and scanning records
+ * straight out of the mapped bytes.
+ * <p>
+ * Only field values are decoded into strings; no per-line strings or regex splits are
+ * created. Field splitting matches {@code line.trim().split("\\s*\\|\\s*")}: whitespace
+ * around separators is dropped and trailing empty fields are discarded.
+ * <p>
+ * On Windows a live mapping prevents the file from being replaced until the buffer is
+ * garbage-collected, so there the same scanner runs over chunks read into a reusable buffer.
+ * <p>
+ * A line that does not parse is handed back as text and skipped, so one damaged record
+ * does not cost the rest of the file.
+ */
+final class MappedTaskReader {
+    /** Largest region mapped at once; a line may not be longer than this. */
+    private static final int MAPPED_WINDOW = 1 << 30;
+    private static final int READ_WINDOW = 1 << 23;
+    static final boolean CAN_MAP = !System.getProperty("os.name", "").startsWith("Windows");
+    private static final int MAX_FIELDS = 8;
+
+    private byte[] scratch = new byte[256];
+    private ByteBuffer readBuffer;
+    private final String[] fields = new String[MAX_FIELDS];
+
+    /**
+     * Parses every task in {@code file}.
+     *
+     * @param file     Existing save file.
+     * @param rejected Receives each malformed line, trimmed, in file order.
+     * @return Tasks in file order.
+     * @throws IOException  If the file cannot be mapped.
+     * @throws PipException If a line is too long to fit in one window.
+     */
+    List<Task> read(Path file, List<String> rejected) throws IOException, PipException {
+        List<Task> out = new ArrayList<>();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long base = 0;
+            while (base < size) {
+                int len = (int) Math.min(CAN_MAP ? MAPPED_WINDOW : READ_WINDOW, size - base);
+                ByteBuffer buf = region(ch, base, len);
+                boolean isLast = base + len == size;
+                int consumed = scan(buf, len, isLast, out, rejected);
+                if (consumed == 0) {
+                    throw new PipException("Save file line too long near byte " + base);
+                }
+                base += consumed;
+            }
+        }
+        return out;
+    }
+
+    private ByteBuffer region(FileChannel ch, long base, int len) throws IOException {
+        if (CAN_MAP) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, base, len);
+        }
+        if (readBuffer == null) {
+            readBuffer = ByteBuffer.allocate(READ_WINDOW);
+        }
+        readBuffer.clear().limit(len);
+        while (readBuffer.hasRemaining()) {
+            if (ch.read(readBuffer, base + readBuffer.position()) < 0) {
+                break;
+            }
+        }
+        return readBuffer.flip();
+    }
+
+    /**
+     * Parses all complete lines in the window.
+     *
+     * @return Number of bytes consumed; an unterminated tail is left for the next window
+     *         unless this is the last one.
+     */
+    private int scan(ByteBuffer buf, int len, boolean isLast, List<Task> out, List<String> rejected) {
+        int lineStart = 0;
+        for (int i = 0; i < len; i++) {
+            if (buf.get(i) == '\n') {
+                parseLine(buf, lineStart, i, out, rejected);
+                lineStart = i + 1;
+            }
+        }
+        if (isLast && lineStart < len) {
+            parseLine(buf, lineStart, len, out, rejected);
+            lineStart = len;
+        }
+        return lineStart;
+    }
+
+    private void parseLine(ByteBuffer buf, int from, int to, List<Task> out, List<String> rejected) {
+        try {
+            Task t = parseRecord(buf, from, to);
+            if (t != null) {
+                out.add(t);
+            }
+        } catch (PipException e) {
+            rejected.add(decodeTrimmed(buf, from, to));
+        }
+    }
+
+    /**
+     * Parses the line held in {@code buf} between {@code from} and {@code to}.
+     *
+     * @return The task, or {@code null} if the line is blank or a comment.
+     * @throws PipException If the line is malformed.
+     */
+    Task parseRecord(ByteBuffer buf, int from, int to) throws PipException {
+        int start = from;
+        int end = to;
+        while (start < end && isSpace(buf.get(start))) {
+            start++;
+        }
+        while (end > start && isSpace(buf.get(end - 1))) {
+            end--;
+        }
+        if (start == end || buf.get(start) == Storage.COMMENT_PREFIX.charAt(0)) {
+            return null;
+        }
+
+        int count = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && buf.get(i) != '|') {
+                continue;
+            }
+            if (count == MAX_FIELDS) {
+                break;
+            }
+            fields[count++] = decodeTrimmed(buf, fieldStart, i);
+            fieldStart = i + 1;
+        }
+        while (count > 0 && fields[count - 1].isEmpty()) {
+            count--;
+        }
+
+        String[] parts = new String[count];
+        System.arraycopy(fields, 0, parts, 0, count);
+        return Task.fromFields(parts);
+    }
+
+    private String decodeTrimmed(ByteBuffer buf, int from, int to) {
+        int start = from;
+        int end = to;
+        while (start < end && isSpace(buf.get(start))) {
+            start++;
+        }
+        while (end > start && isSpace(buf.get(end - 1))) {
+            end--;
+        }
+        int n = end - start;
+        if (n == 0) {
+            return "";
+        }
+        if (n > scratch.length) {
+            scratch = new byte[Math.max(n, scratch.length * 2)];
+        }
+        buf.get(start, scratch, 0, n);
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /** Same character set as the regex {@code \s}. */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+}
@@ -0,0 +1,61 @@
+package pip.storage;
+
+import java.util.List;
+import java.util.Locale;
+
+import pip.app.PipException;
+import pip.model.Task;
+
+/**
+ * Command-line tool that rewrites a save file in the text or binary format.
+ * <p>
+ * Usage: {@code java -cp pip.jar pip.storage.SaveFileConverter <source> <target> text|binary}.
+ * The source may be in either format; source and target may be the same file.
+ */
+public class SaveFileConverter {
+    private SaveFileConverter() {
+    }
+
+    /**
+     * Loads {@code source} and saves its tasks to {@code target} in {@code format}.
+     *
+     * @param source Existing save file in either format.
+     * @param target File to write; replaced atomically.
+     * @param format Format to write.
+     * @return Number of tasks converted.
+     * @throws PipException If reading or writing fails.
+     */
+    public static int convert(String source, String target, SaveFormat format) throws PipException {
+        List<Task> tasks = new Storage(source).load();
+        new Storage(target, format).save(tasks);
+        return tasks.size();
+    }
+
+    /**
+     * Entry point; exits with status 2 on bad arguments and 1 if the conversion fails.
+     *
+     * @param args source path, target path and format name.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: SaveFileConverter <source> <target> text|binary");
+            System.exit(2);
+            return;
+        }
+        SaveFormat format;
+        try {
+            format = SaveFormat.valueOf(args[2].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown format: " + args[2]);
+            System.exit(2);
+            return;
+        }
+        try {
+            int n = convert(args[0], args[1], format);
+            System.out.println("Converted " + n + " tasks to " + args[2].toLowerCase(Locale.ROOT) + ".");
+        } catch (PipException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
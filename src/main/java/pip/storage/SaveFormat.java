@@ -0,0 +1,21 @@
+package pip.storage;
+
+/** On-disk encodings of the task list. Loading detects either one automatically. */
+public enum SaveFormat {
+    /** Human-readable pipe-delimited lines, one task per line. */
+    TEXT,
+    /** Compact versioned records written by {@link BinaryTaskCodec}. */
+    BINARY;
+
+    /** System property selecting the format {@link Storage#open(String)} saves in. */
+    public static final String PROPERTY = "pip.storage.format";
+
+    /**
+     * Returns the format named by {@value #PROPERTY}, or {@link #TEXT} if unset or unknown.
+     *
+     * @return Configured save format.
+     */
+    public static SaveFormat fromProperty() {
+        return "binary".equalsIgnoreCase(System.getProperty(PROPERTY, "")) ? BINARY : TEXT;
+    }
+}
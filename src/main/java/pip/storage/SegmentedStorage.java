@@ -0,0 +1,693 @@
+package pip.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import pip.app.PipException;
+import pip.metrics.Metrics;
+import pip.model.Task;
+import pip.model.TaskSource;
+
+/**
+ * Storage that splits the list into segment files of at most a fixed number of tasks, listed in
+ * order by a small manifest, so a change rewrites only the segment it falls in and segments
+ * nobody touches, such as old runs of finished tasks, are never written again.
+ * <p>
+ * Files live in {@code <file>.segments/}: a {@code manifest} whose first line is
+ * {@code #pip segments 1}, followed by one {@code <segment file> <task count>} line per segment,
+ * and the segment files themselves, each in the ordinary save format. A segment is never
+ * rewritten in place: changed tasks go to a new file and the manifest is then replaced in one
+ * step, so a crash leaves either the old or the new list. Files the manifest does not name are
+ * leftovers of such a crash and are deleted on load. Segments are read in parallel.
+ * <p>
+ * Each segment remembers the task ids and done states it was written with. The single-task
+ * saves locate their segment directly; {@link #save(List)} compares the whole list against
+ * what was written and rewrites only the segments that differ. Segments shrink as tasks are
+ * deleted and are dropped once empty; a segment that grows past the limit is split. A segment
+ * rewritten with fewer than half the limit is merged with a neighbour that is also below half,
+ * so deletions do not leave a trail of tiny files.
+ * <p>
+ * The first time it starts without a manifest, an existing save file is loaded, written as
+ * segments and renamed to {@code <file>.bak}. A later start in another storage mode writes the
+ * segments back into the save file and deletes them, see {@link #unfold()}.
+ */
+public class SegmentedStorage extends Storage {
+    /** System property overriding the most tasks kept in one segment file. */
+    public static final String SEGMENT_SIZE_PROPERTY = "pip.segment.size";
+
+    private static final int DEFAULT_SEGMENT_SIZE = 8192;
+    private static final String MANIFEST_HEADER = COMMENT_PREFIX + "pip segments 1";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final int segmentSize;
+    private final Path segmentDir;
+    private final Path manifest;
+    /** Segments as the manifest on disk lists them, in list order. */
+    private List<Segment> segments = new ArrayList<>();
+    /** Segment files written since the last forced write. */
+    private final Set<Path> unsynced = new HashSet<>();
+    private long nextFileNo = 1;
+
+    /**
+     * Constructs a segmented storage whose segments hold at most {@value #SEGMENT_SIZE_PROPERTY}
+     * tasks, or 8192 if unset.
+     *
+     * @param filePath Path of the save file; segments go in a directory beside it.
+     */
+    public SegmentedStorage(String filePath) {
+        this(filePath, Integer.getInteger(SEGMENT_SIZE_PROPERTY, DEFAULT_SEGMENT_SIZE));
+    }
+
+    /**
+     * Constructs a segmented storage with an explicit segment size.
+     *
+     * @param filePath    Path of the save file; segments go in a directory beside it.
+     * @param segmentSize Most tasks kept in one segment file.
+     */
+    public SegmentedStorage(String filePath, int segmentSize) {
+        this(filePath, segmentSize, SaveFormat.fromProperty(), SyncPolicy.fromProperty());
+    }
+
+    /**
+     * Constructs a segmented storage with an explicit segment size, format and sync policy.
+     *
+     * @param filePath    Path of the save file; segments go in a directory beside it.
+     * @param segmentSize Most tasks kept in one segment file.
+     * @param format      Encoding used for segment files.
+     * @param sync        When saves are forced to disk.
+     */
+    public SegmentedStorage(String filePath, int segmentSize, SaveFormat format, SyncPolicy sync) {
+        super(filePath, format, sync);
+        assert segmentSize > 0 : "segment size must be positive";
+        this.segmentSize = segmentSize;
+        this.segmentDir = dataFile.resolveSibling(dataFile.getFileName() + ".segments");
+        this.manifest = segmentDir.resolve("manifest");
+    }
+
+    /**
+     * Returns the directory holding the manifest and the segment files.
+     *
+     * @return {@code <file>.segments}.
+     */
+    public Path getSegmentDir() {
+        return segmentDir;
+    }
+
+    /**
+     * Reads every segment named by the manifest, in parallel, and joins them in order.
+     * Malformed lines are quarantined, and their segments are rewritten on the next save.
+     *
+     * @return Tasks in list order.
+     * @throws PipException If the manifest or a segment it names cannot be read.
+     */
+    @Override
+    public List<Task> load() throws PipException {
+        try {
+            Files.createDirectories(segmentDir);
+            if (Files.notExists(manifest)) {
+                return migrate();
+            }
+            List<Segment> listed = readManifest();
+            List<Loaded> loaded;
+            try {
+                loaded = IntStream.range(0, listed.size()).parallel()
+                        .mapToObj(i -> readSegment(segmentDir.resolve(listed.get(i).name)))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            int total = listed.stream().mapToInt(seg -> seg.listedCount).sum();
+            List<Task> out = new ArrayList<>(total);
+            List<String> rejected = new ArrayList<>();
+            for (int i = 0; i < listed.size(); i++) {
+                Loaded part = loaded.get(i);
+                Segment seg = listed.get(i);
+                if (part.error != null) {
+                    throw part.error;
+                }
+                seg.remember(part.tasks);
+                seg.bytes = part.bytes;
+                seg.isStale = !part.rejected.isEmpty() || part.tasks.size() != seg.listedCount;
+                out.addAll(part.tasks);
+                rejected.addAll(part.rejected);
+            }
+            segments = listed;
+            quarantine(rejected);
+            deleteUnlisted();
+            return out;
+        } catch (IOException e) {
+            throw new PipException("Failed to read save file.");
+        }
+    }
+
+    /** Loads the single save file, if there is one, and writes it out as segments. */
+    private List<Task> migrate() throws IOException, PipException {
+        List<Task> out = Files.exists(dataFile) ? super.load() : new ArrayList<>();
+        segments = new ArrayList<>();
+        save(out);
+        if (Files.exists(dataFile)) {
+            Files.move(dataFile, dataFile.resolveSibling(dataFile.getFileName() + ".bak"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        return out;
+    }
+
+    /**
+     * Joins every segment back into the single save file and deletes the segment directory,
+     * leaving a save file that any storage mode reads. Used when Pip starts in another mode
+     * after a session in this one. The manifest is deleted first, so a crash part way leaves
+     * either the segments or the save file in charge, never a mix.
+     *
+     * @return Tasks in list order.
+     * @throws PipException If a segment cannot be read or the save file cannot be written.
+     */
+    List<Task> unfold() throws PipException {
+        List<Task> out = load();
+        segments = new ArrayList<>();
+        super.save(out);
+        try {
+            AtomicFiles.force(dataFile);
+            AtomicFiles.forceDirectory(dataFile);
+            Files.delete(manifest);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(segmentDir)) {
+                for (Path p : files) {
+                    Files.deleteIfExists(p);
+                }
+            }
+            Files.delete(segmentDir);
+            return out;
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    /**
+     * Returns whether {@code dataFile} has a segment manifest beside it.
+     *
+     * @param dataFile The save file.
+     * @return {@code true} if a session in segmented mode holds the list.
+     */
+    static boolean hasSegments(Path dataFile) {
+        return Files.exists(dataFile.resolveSibling(dataFile.getFileName() + ".segments").resolve("manifest"));
+    }
+
+    /** The segments are this storage's own; only journals are adopted, when migrating. */
+    @Override
+    protected void adoptOtherModes() throws PipException {
+        adoptJournals();
+    }
+
+    private List<Segment> readManifest() throws IOException, PipException {
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !MANIFEST_HEADER.equals(lines.get(0).trim())) {
+            throw new PipException("Unrecognised segment manifest: " + manifest);
+        }
+        List<Segment> listed = new ArrayList<>(lines.size() - 1);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length != 2 || !parts[0].endsWith(SEGMENT_SUFFIX)) {
+                throw new PipException("Unrecognised segment manifest: " + manifest);
+            }
+            Segment seg = new Segment(parts[0]);
+            try {
+                seg.listedCount = Integer.parseInt(parts[1]);
+                long no = Long.parseLong(parts[0].substring(0, parts[0].length() - SEGMENT_SUFFIX.length()));
+                nextFileNo = Math.max(nextFileNo, no + 1);
+            } catch (NumberFormatException e) {
+                throw new PipException("Unrecognised segment manifest: " + manifest);
+            }
+            listed.add(seg);
+        }
+        return listed;
+    }
+
+    /** Parses one segment file; runs on a pool thread, so failures are returned rather than thrown. */
+    private static Loaded readSegment(Path file) {
+        Loaded part = new Loaded();
+        try {
+            part.bytes = Files.size(file);
+            if (BinaryTaskCodec.isBinary(file)) {
+                part.tasks = BinaryTaskCodec.read(file, part.rejected);
+            } else {
+                part.tasks = new MappedTaskReader().read(file, part.rejected);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (PipException e) {
+            part.error = e;
+        }
+        return part;
+    }
+
+    /** Deletes segment and temporary files left behind by a save that did not finish. */
+    private void deleteUnlisted() throws IOException {
+        Set<String> listed = new HashSet<>();
+        for (Segment seg : segments) {
+            listed.add(seg.name);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(segmentDir)) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                if ((name.endsWith(SEGMENT_SUFFIX) && !listed.contains(name)) || name.endsWith(".tmp")) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    /** Segments are read whole, in parallel, so tasks are always loaded eagerly. */
+    @Override
+    protected TaskSource openLazily() {
+        return null;
+    }
+
+    /**
+     * Rewrites the segments whose tasks differ from what was last written, and drops segments
+     * that are now empty. Appending to a list only writes the new tasks.
+     *
+     * @param items Tasks to persist, in order.
+     * @throws PipException If writing fails for any reason.
+     */
+    @Override
+    public void save(List<Task> items) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int n = items.size();
+        long[] ids = new long[n];
+        BitSet done = new BitSet(n);
+        int k = 0;
+        for (Task t : items) {
+            done.set(k, t.isDone());
+            ids[k++] = t.getId();
+        }
+        int[] counts = assign(ids);
+
+        List<Segment> next = new ArrayList<>(segments.size() + 1);
+        List<Segment> obsolete = new ArrayList<>();
+        int half = segmentSize / 2;
+        // Tasks from runFrom up to from still have to be written.
+        int runFrom = 0;
+        int from = 0;
+        try {
+            for (int s = 0; s < counts.length; s++) {
+                Segment old = s < segments.size() ? segments.get(s) : null;
+                int to = from + counts[s];
+                if (old != null && !old.isStale && old.matches(ids, done, from, Math.min(to, from + old.count()))) {
+                    int run = from - runFrom;
+                    if (run > 0 && run < half && old.count() < half) {
+                        obsolete.add(old);
+                    } else {
+                        runFrom = writeRun(items, runFrom, from, next, obsolete);
+                        next.add(old);
+                        runFrom += old.count();
+                    }
+                } else if (old != null) {
+                    obsolete.add(old);
+                }
+                from = to;
+            }
+            writeRun(items, runFrom, from, next, obsolete);
+            for (int s = counts.length; s < segments.size(); s++) {
+                obsolete.add(segments.get(s));
+            }
+            commit(next, obsolete, start);
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    /**
+     * Writes the tasks from {@code from} up to {@code to} as new segments at the end of
+     * {@code next}, split evenly so none exceeds the limit. A run below half the limit first
+     * takes back the segment before it, if that is below half too.
+     *
+     * @return {@code to}, where the next run starts.
+     */
+    private int writeRun(List<Task> items, int from, int to, List<Segment> next, List<Segment> obsolete)
+            throws IOException {
+        int start = from;
+        int half = segmentSize / 2;
+        if (to - start > 0 && to - start < half && !next.isEmpty() && next.get(next.size() - 1).count() < half) {
+            Segment prev = next.remove(next.size() - 1);
+            obsolete.add(prev);
+            start -= prev.count();
+        }
+        int len = to - start;
+        int pieces = (len + segmentSize - 1) / segmentSize;
+        for (int p = 0; p < pieces; p++) {
+            next.add(write(items.subList(start + (int) ((long) len * p / pieces),
+                    start + (int) ((long) len * (p + 1) / pieces))));
+        }
+        return to;
+    }
+
+    /**
+     * Decides how many of the given tasks, in order, belong to each current segment: a task
+     * written before stays in its segment and a new one joins the segment of the task before it.
+     * Tasks at the front with no earlier neighbour join the first segment, and if there are no
+     * segments yet every task goes in one new group.
+     *
+     * @param ids Ids of the tasks to save, in list order.
+     * @return Number of tasks for each segment; never shorter than one entry.
+     */
+    private int[] assign(long[] ids) {
+        int[] counts = new int[Math.max(1, segments.size())];
+        if (segments.isEmpty()) {
+            counts[0] = ids.length;
+            return counts;
+        }
+        int total = 0;
+        for (Segment seg : segments) {
+            total += seg.count();
+        }
+        if (total == ids.length && sameIds(ids)) {
+            for (int s = 0; s < segments.size(); s++) {
+                counts[s] = segments.get(s).count();
+            }
+            return counts;
+        }
+        IdIndex owners = new IdIndex(total);
+        for (int s = 0; s < segments.size(); s++) {
+            for (long id : segments.get(s).ids) {
+                owners.put(id, s);
+            }
+        }
+        int current = 0;
+        for (long id : ids) {
+            // Never step back, so every segment stays one contiguous run of the list.
+            current = Math.max(current, owners.get(id));
+            counts[current]++;
+        }
+        return counts;
+    }
+
+    private boolean sameIds(long[] ids) {
+        int from = 0;
+        for (Segment seg : segments) {
+            if (!Arrays.equals(seg.ids, 0, seg.count(), ids, from, from + seg.count())) {
+                return false;
+            }
+            from += seg.count();
+        }
+        return true;
+    }
+
+    /** Rewrites only the segment holding the changed task. */
+    @Override
+    public void saveUpdated(List<Task> items, int index) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        int s = segmentOf(index);
+        int from = startOf(s);
+        if (s < 0 || items.size() != totalCount() || segments.get(s).ids[index - from] != items.get(index).getId()) {
+            save(items);
+            return;
+        }
+        replace(items, s, from, from + segments.get(s).count());
+    }
+
+    /** Rewrites only the segment the task was removed from, or drops it if it is now empty. */
+    @Override
+    public void saveRemoved(List<Task> items, int index) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        int s = segmentOf(index);
+        if (s < 0 || items.size() != totalCount() - 1) {
+            save(items);
+            return;
+        }
+        int from = startOf(s);
+        long[] held = segments.get(s).ids;
+        List<Task> kept = items.subList(from, from + held.length - 1);
+        for (int j = 0; j < kept.size(); j++) {
+            if (kept.get(j).getId() != held[j < index - from ? j : j + 1]) {
+                save(items);
+                return;
+            }
+        }
+        replace(items, s, from, from + kept.size());
+    }
+
+    /** Rewrites only the last segment, or starts a new one once it is full. */
+    @Override
+    public void saveAdded(List<Task> items, Task added) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        int total = totalCount();
+        int last = segments.size() - 1;
+        if (items.size() != total + 1 || last < 0 || segments.get(last).count() >= segmentSize
+                || items.get(total) != added || items.get(total - 1).getId() != segments.get(last).lastId()) {
+            save(items);
+            return;
+        }
+        replace(items, last, total - segments.get(last).count(), items.size());
+    }
+
+    /**
+     * Writes the tasks from {@code from} up to {@code to} as the new contents of segment
+     * {@code s}, or drops it if there are none. Contents below half the limit are merged with
+     * the neighbouring segment before or else after, if that is below half too.
+     */
+    private void replace(List<Task> items, int s, int from, int to) throws PipException {
+        long start = System.nanoTime();
+        int half = segmentSize / 2;
+        int lo = s;
+        int hi = s;
+        if (to > from && to - from < half) {
+            if (s > 0 && segments.get(s - 1).count() < half) {
+                lo = s - 1;
+                from -= segments.get(lo).count();
+            } else if (s + 1 < segments.size() && segments.get(s + 1).count() < half) {
+                hi = s + 1;
+                to += segments.get(hi).count();
+            }
+        }
+        try {
+            List<Segment> next = new ArrayList<>(segments.subList(0, lo));
+            if (to > from) {
+                next.add(write(items.subList(from, to)));
+            }
+            next.addAll(segments.subList(hi + 1, segments.size()));
+            commit(next, new ArrayList<>(segments.subList(lo, hi + 1)), start);
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    private int totalCount() {
+        int total = 0;
+        for (Segment seg : segments) {
+            total += seg.count();
+        }
+        return total;
+    }
+
+    /** Index of the segment holding list position {@code index}, or -1 if it is past the end. */
+    private int segmentOf(int index) {
+        int from = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            from += segments.get(s).count();
+            if (index < from) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    private int startOf(int s) {
+        int from = 0;
+        for (int i = 0; i < s; i++) {
+            from += segments.get(i).count();
+        }
+        return from;
+    }
+
+    /** Writes tasks to a new segment file that no manifest names yet. */
+    private Segment write(List<Task> tasks) throws IOException {
+        Segment seg = new Segment(String.format("%08d%s", nextFileNo++, SEGMENT_SUFFIX));
+        Path file = segmentDir.resolve(seg.name);
+        Files.createDirectories(segmentDir);
+        if (format == SaveFormat.BINARY) {
+            BinaryTaskCodec.write(file, tasks);
+        } else {
+            writeText(file, tasks);
+        }
+        seg.remember(tasks);
+        seg.bytes = Files.size(file);
+        unsynced.add(file);
+        return seg;
+    }
+
+    /**
+     * Makes {@code next} the list of segments by replacing the manifest, then deletes the files
+     * of the segments it no longer names.
+     */
+    private void commit(List<Segment> next, List<Segment> obsolete, long start) throws IOException {
+        boolean isSync = isSyncDue();
+        if (isSync) {
+            for (Path file : unsynced) {
+                AtomicFiles.force(file);
+            }
+            unsynced.clear();
+        }
+        StringBuilder sb = new StringBuilder(MANIFEST_HEADER).append('\n');
+        for (Segment seg : next) {
+            sb.append(seg.name).append(' ').append(seg.count()).append('\n');
+        }
+        Path tmp = manifest.resolveSibling("manifest.tmp");
+        Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+        AtomicFiles.replace(tmp, manifest, isSync);
+        segments = next;
+        for (Segment seg : obsolete) {
+            Path file = segmentDir.resolve(seg.name);
+            unsynced.remove(file);
+            Files.deleteIfExists(file);
+        }
+        recordTiming(Metrics.OP_SAVE, start, 0);
+    }
+
+    /** Counts the segment files towards the size of the save. */
+    @Override
+    protected void recordTiming(String op, long startNanos, long extraBytes) {
+        long bytes = extraBytes;
+        for (Segment seg : segments) {
+            bytes += seg.bytes;
+        }
+        super.recordTiming(op, startNanos, bytes);
+    }
+
+    /**
+     * Forces the manifest and any segment written since the last forced save to disk, if the
+     * sync policy has left writes unforced.
+     *
+     * @throws PipException If syncing fails.
+     */
+    @Override
+    public void flush() throws PipException {
+        if (!takePendingSync()) {
+            return;
+        }
+        try {
+            for (Path file : unsynced) {
+                AtomicFiles.force(file);
+            }
+            unsynced.clear();
+            if (Files.exists(manifest)) {
+                AtomicFiles.force(manifest);
+                AtomicFiles.forceDirectory(manifest);
+            }
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    /** One segment file and the tasks, by id and done state, that were written to it. */
+    private static final class Segment {
+        private final String name;
+        private long[] ids = new long[0];
+        private BitSet done = new BitSet();
+        private long bytes;
+        /** Task count the manifest gave, checked against the file on load. */
+        private int listedCount;
+        /** Whether the file differs from {@link #ids}, so it must be rewritten on the next save. */
+        private boolean isStale;
+
+        Segment(String name) {
+            this.name = name;
+        }
+
+        int count() {
+            return ids.length;
+        }
+
+        long lastId() {
+            return ids.length == 0 ? 0 : ids[ids.length - 1];
+        }
+
+        void remember(List<Task> tasks) {
+            ids = new long[tasks.size()];
+            done = new BitSet(tasks.size());
+            int i = 0;
+            for (Task t : tasks) {
+                ids[i] = t.getId();
+                done.set(i, t.isDone());
+                i++;
+            }
+        }
+
+        /**
+         * Whether the tasks from {@code from} to {@code to} are exactly the ones this segment
+         * holds, in the same done states.
+         */
+        boolean matches(long[] itemIds, BitSet itemDone, int from, int to) {
+            if (to - from != ids.length || !Arrays.equals(ids, 0, ids.length, itemIds, from, to)) {
+                return false;
+            }
+            return itemDone.get(from, to).equals(done);
+        }
+    }
+
+    /** Result of reading one segment on a pool thread. */
+    private static final class Loaded {
+        private List<Task> tasks = List.of();
+        private long bytes;
+        private final List<String> rejected = new ArrayList<>();
+        private PipException error;
+    }
+
+    /** Open-addressing map from task id to segment index, with -1 for ids it does not hold. */
+    private static final class IdIndex {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        IdIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(long id, int value) {
+            int i = slot(id);
+            while (keys[i] != 0 && keys[i] != id) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = id;
+            values[i] = value;
+        }
+
+        int get(long id) {
+            int i = slot(id);
+            while (keys[i] != 0) {
+                if (keys[i] == id) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int slot(long id) {
+            return (int) (id * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        }
+    }
+}
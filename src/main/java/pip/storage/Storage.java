@@ -1,25 +1,58 @@
 package pip.storage;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
 import pip.app.PipException;
+import pip.metrics.Metrics;
 import pip.model.Task;
+import pip.model.TaskList;
+import pip.model.TaskSource;
 
 /**
  * File-backed storage for loading and saving Pip tasks.
  * Creates the data directory/file on demand and reads/writes lines in the
  * pipe-delimited format produced by pip.model.Task#toDataString().
+ * <p>
+ * Loading is tolerant: a record that cannot be read is appended to a quarantine file
+ * ({@code pip.txt.corrupt}) and skipped, and the rest of the list loads as usual.
  */
 public class Storage {
-    private final Path dataDir;
-    private final Path dataFile;
+    /** System property selecting the storage mode used by {@link #open(String)}. */
+    public static final String MODE_PROPERTY = "pip.storage";
+
+    /**
+     * System property that makes {@link #loadTaskList()} parse saved tasks on demand when set
+     * to {@code lazy}; the default, {@code eager}, parses them all before returning.
+     */
+    public static final String LOAD_PROPERTY = "pip.load";
+
+    /** Lines starting with this marker are metadata, not tasks, and are skipped on load. */
+    protected static final String COMMENT_PREFIX = "#";
+
+    private static final int WRITE_BUFFER = 1 << 16;
+
+    protected final Path dataDir;
+    protected final Path dataFile;
+    protected final SaveFormat format;
+    protected final SyncPolicy sync;
+
+    private boolean isBatching;
+    private boolean isBatchDirty;
+    private int quarantined;
+    private long lastSync;
+    private boolean hasSynced;
+    private boolean isSyncPending;
 
     /**
      * Constructs a Storage instance for the given file path.
@@ -27,20 +60,79 @@ public class Storage {
      * @param filePath Path to the persistent tasks file.
      */
     public Storage(String filePath) {
+        this(filePath, SaveFormat.TEXT);
+    }
+
+    /**
+     * Constructs a Storage instance that saves in the given format, syncing to disk as the
+     * {@code pip.fsync} property says. Loading accepts either format regardless.
+     *
+     * @param filePath Path to the persistent tasks file.
+     * @param format   Encoding used when saving.
+     */
+    public Storage(String filePath, SaveFormat format) {
+        this(filePath, format, SyncPolicy.fromProperty());
+    }
+
+    /**
+     * Constructs a Storage instance with an explicit sync policy.
+     *
+     * @param filePath Path to the persistent tasks file.
+     * @param format   Encoding used when saving.
+     * @param sync     When saves are forced to disk.
+     */
+    public Storage(String filePath, SaveFormat format, SyncPolicy sync) {
         assert filePath != null && !filePath.isBlank() : "filePath must be non-empty";
+        assert format != null : "format must not be null";
+        assert sync != null : "sync must not be null";
 
         this.dataFile = Paths.get(filePath);
         this.dataDir = dataFile.getParent() != null ? dataFile.getParent() : Paths.get(".");
+        this.format = format;
+        this.sync = sync;
+    }
+
+    /**
+     * Creates the storage implementation selected by the {@code pip.storage} system property.
+     * Supported modes are {@code async} (default, full rewrites done by a background thread),
+     * {@code text} (full rewrite on every change, on the caller's thread),
+     * {@code journal} (append-only change log with periodic compaction) and
+     * {@code segmented} (fixed-size segment files, of which only changed ones are rewritten).
+     * The {@code pip.storage.format} property picks the text or binary encoding for every
+     * mode but the journal, which always uses text.
+     *
+     * @param filePath Path to the persistent tasks file.
+     * @return Storage for the given path.
+     */
+    public static Storage open(String filePath) {
+        String mode = System.getProperty(MODE_PROPERTY, "async");
+        switch (mode) {
+        case "journal":
+            return new JournaledStorage(filePath);
+        case "segmented":
+            return new SegmentedStorage(filePath);
+        case "text":
+            return new Storage(filePath, SaveFormat.fromProperty());
+        default:
+            WriteBehindStorage storage = new WriteBehindStorage(new Storage(filePath, SaveFormat.fromProperty()));
+            storage.flushOnShutdown();
+            return storage;
+        }
     }
 
     /**
      * Loads tasks from disk.
      * If the directory/file does not exist, they are created and an empty list is returned.
+     * The file is memory-mapped and parsed in place, so no intermediate line list is built.
+     * Files in the binary format are recognised by their header and decoded as such.
+     * Malformed lines are quarantined and left out; see {@link #getQuarantinedCount()}.
      *
      * @return A list of deserialized tasks; empty if the file was newly created or empty.
-     * @throws PipException If the file cannot be read or a line is malformed.
+     * @throws PipException If the file cannot be read or its format is not recognised.
      */
     public List<Task> load() throws PipException {
+        adoptOtherModes();
+        quarantined = 0;
         List<Task> out = new ArrayList<>();
         try {
             if (Files.notExists(dataDir)) {
@@ -50,45 +142,403 @@ public class Storage {
                 Files.createFile(dataFile);
                 return out;
             }
-            List<String> lines = Files.readAllLines(dataFile, StandardCharsets.UTF_8);
-            for (String line : lines) {
-                String trimmed = line.trim();
-                if (trimmed.isEmpty()) {
-                    continue;
-                }
-                out.add(Task.fromDataString(trimmed));
+            List<String> rejected = new ArrayList<>();
+            if (BinaryTaskCodec.isBinary(dataFile)) {
+                out = BinaryTaskCodec.read(dataFile, rejected);
+            } else {
+                out = new MappedTaskReader().read(dataFile, rejected);
             }
+            quarantine(rejected);
             return out;
         } catch (IOException e) {
             throw new PipException("Failed to read save file.");
         }
     }
 
+    /**
+     * Brings into the save file any tasks another storage mode left beside it, so that
+     * switching modes between runs never hides the list. Segments from a session in segmented
+     * mode are joined back into the save file, then journals from a session in journal mode are
+     * folded into it; both are deleted once the save file holds their tasks.
+     *
+     * @throws PipException If those files cannot be read or the save file cannot be written.
+     */
+    protected void adoptOtherModes() throws PipException {
+        adoptSegments();
+        adoptJournals();
+    }
+
+    /** Joins segments left by segmented mode back into the save file, if there are any. */
+    protected final void adoptSegments() throws PipException {
+        if (SegmentedStorage.hasSegments(dataFile)) {
+            new SegmentedStorage(dataFile.toString()).unfold();
+        }
+    }
+
+    /** Folds journals left by journal mode into the save file, if there are any. */
+    protected final void adoptJournals() throws PipException {
+        try {
+            if (!JournaledStorage.hasJournals(dataFile)) {
+                return;
+            }
+        } catch (IOException e) {
+            throw new PipException("Failed to read save file.");
+        }
+        new JournaledStorage(dataFile.toString()).fold();
+    }
+
+    /**
+     * Appends unreadable records to the quarantine file, behind a comment saying where and
+     * when they came from, so nothing is lost when the save file is next rewritten without them.
+     *
+     * @param records Raw records, one per line.
+     * @throws IOException If the quarantine file cannot be written.
+     */
+    protected void quarantine(List<String> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder()
+                .append(COMMENT_PREFIX).append(' ').append(records.size())
+                .append(" unreadable record(s) from ").append(dataFile.getFileName())
+                .append(" on ").append(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).append('\n');
+        for (String r : records) {
+            sb.append(r).append('\n');
+        }
+        Path file = getQuarantineFile();
+        Files.writeString(file, sb, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        AtomicFiles.force(file);
+        quarantined += records.size();
+    }
+
+    /**
+     * Returns how many unreadable records the last {@link #load()} moved to the quarantine file.
+     *
+     * @return Number of records quarantined; 0 if the file was intact.
+     */
+    public int getQuarantinedCount() {
+        return quarantined;
+    }
+
+    /**
+     * Returns the file unreadable records are moved to.
+     *
+     * @return {@code <save file>.corrupt}.
+     */
+    public Path getQuarantineFile() {
+        return dataFile.resolveSibling(dataFile.getFileName() + ".corrupt");
+    }
+
+    /**
+     * Loads the saved tasks into a task list. With {@code -Dpip.load=lazy} a text save file is
+     * memory-mapped and each task is parsed when a command first reaches it, so start-up takes
+     * the same time however long the list is; other files, and the default eager mode, go
+     * through {@link #load()}. If that quarantined anything, the file is saved again without it.
+     *
+     * @return The saved tasks.
+     * @throws PipException If the file cannot be read.
+     */
+    public TaskList loadTaskList() throws PipException {
+        long start = System.nanoTime();
+        if (isLazyLoad()) {
+            TaskSource saved = openLazily();
+            if (saved != null) {
+                recordTiming(Metrics.OP_LOAD, start, 0);
+                return new TaskList(saved);
+            }
+        }
+        TaskList tasks = new TaskList(load());
+        recordTiming(Metrics.OP_LOAD, start, 0);
+        if (getQuarantinedCount() > 0) {
+            try {
+                save(tasks.asList());
+            } catch (PipException e) {
+                // The same records are quarantined again on the next start; nothing is lost.
+            }
+        }
+        return tasks;
+    }
+
+    private static boolean isLazyLoad() {
+        return "lazy".equals(System.getProperty(LOAD_PROPERTY));
+    }
+
+    /**
+     * Opens the save file for parsing on demand. Only a file with a current sidecar index,
+     * which Pip wrote itself, is trusted to parse cleanly; any other is loaded eagerly so
+     * that bad lines can be quarantined.
+     *
+     * @return The saved tasks, or {@code null} if they must be read with {@link #load()} instead.
+     * @throws PipException If the file cannot be read.
+     */
+    protected TaskSource openLazily() throws PipException {
+        adoptOtherModes();
+        try {
+            if (Files.notExists(dataFile) || BinaryTaskCodec.isBinary(dataFile)) {
+                return null;
+            }
+            return LazyTaskFile.open(dataFile);
+        } catch (IOException e) {
+            throw new PipException("Failed to read save file.");
+        }
+    }
+
     /**
      * Saves the given tasks to disk, replacing the existing contents.
+     * The list is written to a temporary file first and then atomically renamed over the save
+     * file, so a crash mid-write leaves the previous contents intact. Whether the new file is
+     * forced to disk before this returns depends on the {@link SyncPolicy}.
      *
      * @param items Tasks to persist, in the same order they should appear in the file.
      * @throws PipException If writing fails for any reason.
      */
     public void save(List<Task> items) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
         try {
             if (Files.notExists(dataDir)) {
                 Files.createDirectories(dataDir);
             }
-            List<String> lines = new ArrayList<>();
+            long start = System.nanoTime();
+            Path tmp = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+            if (format == SaveFormat.BINARY) {
+                BinaryTaskCodec.write(tmp, items);
+                replaceDataFile(tmp);
+                recordTiming(Metrics.OP_SAVE, start, 0);
+                return;
+            }
+            long[] starts = writeText(tmp, items);
+            replaceDataFile(tmp);
+            if (isLazyLoad()) {
+                LazyTaskFile.writeIndex(dataFile, starts, starts.length);
+            }
+            recordTiming(Metrics.OP_SAVE, start, 0);
+        } catch (IOException e) {
+            throw new PipException("Failed to save tasks to disk.");
+        }
+    }
+
+    /**
+     * Records in {@link Metrics} how long a storage operation took and how large the save now is.
+     *
+     * @param op         One of the {@code Metrics.OP_} operations.
+     * @param startNanos {@link System#nanoTime()} when the operation began.
+     * @param extraBytes Bytes kept outside the save file, such as an open journal.
+     */
+    protected void recordTiming(String op, long startNanos, long extraBytes) {
+        Metrics metrics = Metrics.get();
+        metrics.recordStorage(op, System.nanoTime() - startNanos);
+        try {
+            metrics.recordSaveFileBytes((Files.exists(dataFile) ? Files.size(dataFile) : 0) + extraBytes);
+        } catch (IOException e) {
+            // The file is being replaced; the next operation records its size.
+        }
+    }
+
+    /**
+     * Renames {@code tmp} over the save file in one step, forcing it to disk first if the
+     * sync policy calls for it now.
+     *
+     * @param tmp Fully written replacement in the same directory.
+     * @throws IOException If the rename fails.
+     */
+    protected void replaceDataFile(Path tmp) throws IOException {
+        AtomicFiles.replace(tmp, dataFile, isSyncDue());
+    }
+
+    /**
+     * Decides whether the write being made now should be forced to disk. Under
+     * {@link SyncPolicy#BATCHED} a write that is not forced is remembered for {@link #flush()}.
+     *
+     * @return {@code true} if the caller should force its write.
+     */
+    protected synchronized boolean isSyncDue() {
+        switch (sync) {
+        case ALWAYS:
+            return true;
+        case NEVER:
+            return false;
+        default:
+            long now = System.nanoTime();
+            if (hasSynced && now - lastSync < SyncPolicy.BATCH_NANOS) {
+                isSyncPending = true;
+                return false;
+            }
+            hasSynced = true;
+            lastSync = now;
+            isSyncPending = false;
+            return true;
+        }
+    }
+
+    /**
+     * Claims the writes left unforced by {@link #isSyncDue()}.
+     *
+     * @return {@code true} if some write still has to be forced; the caller must now do it.
+     */
+    protected synchronized boolean takePendingSync() {
+        boolean isPending = isSyncPending;
+        isSyncPending = false;
+        return isPending;
+    }
+
+    /** Writes one line per task and returns the byte offset at which each line starts. */
+    static long[] writeText(Path file, List<Task> items) throws IOException {
+        long[] starts = new long[items.size()];
+        byte[] newline = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE), WRITE_BUFFER)) {
+            long offset = 0;
+            int i = 0;
             for (Task t : items) {
                 assert t != null : "task must not be null";
-                lines.add(t.toDataString());
+                byte[] line = t.toDataString().getBytes(StandardCharsets.UTF_8);
+                starts[i++] = offset;
+                out.write(line);
+                out.write(newline);
+                offset += line.length + newline.length;
             }
-            Files.write(
-                    dataFile,
-                    lines,
-                    StandardCharsets.UTF_8,
-                    StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.CREATE
-            );
+        }
+        return starts;
+    }
+
+    /**
+     * Persists the addition of a task at the end of the list.
+     * The default implementation rewrites the whole file.
+     *
+     * @param items Current tasks, already including {@code added} as the last element.
+     * @param added The task that was appended.
+     * @throws PipException If writing fails for any reason.
+     */
+    public void saveAdded(List<Task> items, Task added) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        save(items);
+    }
+
+    /**
+     * Persists the insertion of a task at {@code index}, as when undoing a deletion puts it back.
+     * The default implementation treats an insertion at the end as {@link #saveAdded(List, Task)}
+     * and rewrites the whole file otherwise.
+     *
+     * @param items Current tasks, already including the inserted one.
+     * @param index Zero-based index the task now occupies.
+     * @throws PipException If writing fails for any reason.
+     */
+    public void saveInserted(List<Task> items, int index) throws PipException {
+        if (index == items.size() - 1) {
+            saveAdded(items, items.get(index));
+            return;
+        }
+        if (deferIfBatching()) {
+            return;
+        }
+        save(items);
+    }
+
+    /**
+     * Persists a change to the done state of the task at {@code index}.
+     * The default implementation rewrites the whole file.
+     *
+     * @param items Current tasks, already reflecting the change.
+     * @param index Zero-based index of the task that was marked or unmarked.
+     * @throws PipException If writing fails for any reason.
+     */
+    public void saveUpdated(List<Task> items, int index) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        save(items);
+    }
+
+    /**
+     * Persists the removal of the task that was at {@code index}.
+     * The default implementation rewrites the whole file.
+     *
+     * @param items Current tasks, already without the removed task.
+     * @param index Zero-based index the task occupied before removal.
+     * @throws PipException If writing fails for any reason.
+     */
+    public void saveRemoved(List<Task> items, int index) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        save(items);
+    }
+
+    /**
+     * Blocks until every change passed to this storage has reached the disk, forcing any
+     * save the sync policy has so far left in the operating system's cache.
+     *
+     * @throws PipException If a pending write failed.
+     */
+    public void flush() throws PipException {
+        if (!takePendingSync()) {
+            return;
+        }
+        try {
+            AtomicFiles.force(dataFile);
+            AtomicFiles.forceDirectory(dataFile);
         } catch (IOException e) {
             throw new PipException("Failed to save tasks to disk.");
         }
     }
+
+    /**
+     * Starts deferring all writes until {@link #commitBatch(List)} or {@link #abortBatch()}.
+     *
+     * @throws PipException If a batch is already open.
+     */
+    public void beginBatch() throws PipException {
+        if (isBatching) {
+            throw new PipException("A batch is already open. Use commit or rollback first.");
+        }
+        isBatching = true;
+        isBatchDirty = false;
+    }
+
+    /**
+     * Returns whether writes are currently being deferred.
+     *
+     * @return {@code true} between {@link #beginBatch()} and the matching commit or abort.
+     */
+    public boolean isBatching() {
+        return isBatching;
+    }
+
+    /**
+     * Ends the batch and, if anything changed during it, writes {@code items} once.
+     *
+     * @param items Tasks as of the end of the batch.
+     * @throws PipException If no batch is open or writing fails.
+     */
+    public void commitBatch(List<Task> items) throws PipException {
+        if (!isBatching) {
+            throw new PipException("There is no open batch to commit.");
+        }
+        isBatching = false;
+        if (isBatchDirty) {
+            save(items);
+        }
+    }
+
+    /** Ends the batch without writing anything; the file keeps its pre-batch contents. */
+    public void abortBatch() {
+        isBatching = false;
+        isBatchDirty = false;
+    }
+
+    /**
+     * Records that a write was requested during a batch.
+     *
+     * @return {@code true} if the caller should skip the write because a batch is open.
+     */
+    protected boolean deferIfBatching() {
+        if (isBatching) {
+            isBatchDirty = true;
+        }
+        return isBatching;
+    }
 }
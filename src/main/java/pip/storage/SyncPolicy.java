@@ -0,0 +1,43 @@
+package pip.storage;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When saved data is forced out of the operating system's cache onto the disk. Every policy
+ * replaces the save file atomically, so a crash never leaves it half written; the policy only
+ * decides how many of the most recent saves a power failure can lose.
+ */
+public enum SyncPolicy {
+    /** Every save reaches the disk before it returns. */
+    ALWAYS,
+    /**
+     * At most one save per second is forced to disk; the saves in between are forced by the
+     * next one after the second is up, or by {@link Storage#flush()} on exit.
+     */
+    BATCHED,
+    /** Nothing is forced; the operating system writes the data back in its own time. */
+    NEVER;
+
+    /** System property selecting the policy storages are created with. */
+    public static final String PROPERTY = "pip.fsync";
+
+    /** Shortest gap between two forced saves under {@link #BATCHED}. */
+    static final long BATCH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Returns the policy named by {@value #PROPERTY}, or {@link #BATCHED} if unset or unknown.
+     *
+     * @return Configured sync policy.
+     */
+    public static SyncPolicy fromProperty() {
+        switch (System.getProperty(PROPERTY, "").toLowerCase(Locale.ROOT)) {
+        case "always":
+            return ALWAYS;
+        case "never":
+            return NEVER;
+        default:
+            return BATCHED;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package pip.storage;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import pip.app.PipException;
+import pip.model.Task;
+import pip.model.TaskSource;
+
+/**
+ * Storage that hands every change to a background writer instead of writing on the
+ * caller's thread.
+ * <p>
+ * A change only records a snapshot of the task references and wakes the writer. While a
+ * write is in progress, further changes replace the pending snapshot, so a burst of commands
+ * is coalesced into one rewrite of the latest state. The actual write is done by the wrapped
+ * {@link Storage}, which replaces the file atomically. {@link #flush()} waits for the writer
+ * to catch up; a failed write is reported by the next call on the caller's thread. A snapshot
+ * whose write failed is kept until a newer one replaces it, and {@link #flush()} retries it.
+ */
+public class WriteBehindStorage extends Storage {
+    private final Storage target;
+    private final Object lock = new Object();
+    private final Thread writer;
+
+    private List<Task> pending;
+    /** Snapshot whose write failed and that no later change has replaced. */
+    private List<Task> unwritten;
+    private long requested;
+    private long written;
+    private PipException failure;
+
+    /**
+     * Wraps {@code target} and starts the writer thread.
+     *
+     * @param target Storage that performs the actual (synchronous) writes.
+     */
+    public WriteBehindStorage(Storage target) {
+        super(target.dataFile.toString(), target.format, target.sync);
+        assert !(target instanceof WriteBehindStorage) : "target must write synchronously";
+        this.target = target;
+        this.writer = new Thread(this::runWriter, "pip-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Registers a shutdown hook that flushes pending changes when the JVM exits. */
+    public void flushOnShutdown() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                flush();
+            } catch (PipException e) {
+                System.err.println(e.getMessage());
+            }
+        }, "pip-write-behind-flush"));
+    }
+
+    @Override
+    public List<Task> load() throws PipException {
+        return target.load();
+    }
+
+    @Override
+    public int getQuarantinedCount() {
+        return target.getQuarantinedCount();
+    }
+
+    @Override
+    public Path getQuarantineFile() {
+        return target.getQuarantineFile();
+    }
+
+    @Override
+    protected TaskSource openLazily() throws PipException {
+        return target.openLazily();
+    }
+
+    /**
+     * Schedules {@code items} to be written and returns without waiting for the disk.
+     *
+     * @param items Tasks to persist.
+     * @throws PipException If an earlier background write failed; {@code items} are still scheduled.
+     */
+    @Override
+    public void save(List<Task> items) throws PipException {
+        if (deferIfBatching()) {
+            return;
+        }
+        List<Task> snapshot = List.copyOf(items);
+        synchronized (lock) {
+            pending = snapshot;
+            unwritten = null;
+            requested++;
+            lock.notifyAll();
+            rethrowFailure();
+        }
+    }
+
+    /**
+     * Waits until the latest scheduled snapshot has been written and forced to disk, first
+     * scheduling again a snapshot whose write failed.
+     *
+     * @throws PipException If the write failed or the wait was interrupted.
+     */
+    @Override
+    public void flush() throws PipException {
+        awaitWriter();
+        target.flush();
+    }
+
+    private void awaitWriter() throws PipException {
+        synchronized (lock) {
+            if (unwritten != null && pending == null) {
+                pending = unwritten;
+                unwritten = null;
+                failure = null;
+                requested++;
+                lock.notifyAll();
+            }
+            long goal = requested;
+            while (written < goal && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PipException("Interrupted while saving tasks to disk.");
+                }
+            }
+            rethrowFailure();
+        }
+    }
+
+    private void rethrowFailure() throws PipException {
+        if (failure != null) {
+            PipException e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<Task> snapshot;
+            long generation;
+            synchronized (lock) {
+                while (pending == null) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                snapshot = pending;
+                generation = requested;
+                pending = null;
+            }
+            PipException error = null;
+            try {
+                target.save(snapshot);
+            } catch (PipException e) {
+                error = e;
+            }
+            synchronized (lock) {
+                written = generation;
+                if (error != null) {
+                    failure = error;
+                    if (pending == null) {
+                        unwritten = snapshot;
+                    }
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+}
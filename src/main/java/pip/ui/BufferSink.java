@@ -0,0 +1,34 @@
+package pip.ui;
+
+/**
+ * Sink that appends lines to a reusable {@link StringBuilder}, for callers that want a
+ * command's output as one string. Lines end with {@code \n}.
+ */
+public class BufferSink implements OutputSink {
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    @Override
+    public void line(String prefix, CharSequence text, int from, int to) {
+        buffer.append(prefix).append(text, from, to).append('\n');
+    }
+
+    /**
+     * Returns everything written since the last call, without leading or trailing whitespace,
+     * and empties the buffer while keeping its capacity.
+     *
+     * @return Collected output.
+     */
+    public String drain() {
+        int start = 0;
+        int end = buffer.length();
+        while (start < end && buffer.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && buffer.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        String s = buffer.substring(start, end);
+        buffer.setLength(0);
+        return s;
+    }
+}
@@ -0,0 +1,30 @@
+package pip.ui;
+
+/**
+ * Destination for the lines {@link Ui} produces.
+ * Implementations may buffer; {@link #flush()} is called once a command's output is complete.
+ */
+public interface OutputSink {
+    /**
+     * Writes {@code prefix}, then {@code text[from, to)}, then a line break.
+     *
+     * @param prefix Text written before the line, such as an indent.
+     * @param text   Source of the line's characters.
+     * @param from   Start index in {@code text}, inclusive.
+     * @param to     End index in {@code text}, exclusive.
+     */
+    void line(String prefix, CharSequence text, int from, int to);
+
+    /**
+     * Writes {@code text} followed by a line break.
+     *
+     * @param text Whole line.
+     */
+    default void line(String text) {
+        line("", text, 0, text.length());
+    }
+
+    /** Pushes any buffered output to its destination. */
+    default void flush() {
+    }
+}
@@ -0,0 +1,28 @@
+package pip.ui;
+
+import java.io.PrintStream;
+
+/** Unbuffered sink that prints every line to a {@link PrintStream} as soon as it is written. */
+public class PrintStreamSink implements OutputSink {
+    private final PrintStream out;
+
+    /**
+     * Creates a sink printing to {@code out}.
+     *
+     * @param out Destination stream.
+     */
+    public PrintStreamSink(PrintStream out) {
+        assert out != null : "stream must not be null";
+        this.out = out;
+    }
+
+    @Override
+    public void line(String prefix, CharSequence text, int from, int to) {
+        out.println(prefix + text.subSequence(from, to));
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+}
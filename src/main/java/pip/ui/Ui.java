@@ -3,36 +3,49 @@ package pip.ui;
 import java.io.PrintStream;
 import java.util.Scanner;
 
+import pip.model.TaskList;
+
 /**
  * UI helper that prints Pip's messages and (optionally) reads user input.
- * Now stream-based so it works for both CLI (System.out) and GUI (captured stream).
+ * Output goes to an {@link OutputSink}, so the CLI can buffer it per command and the GUI can
+ * collect it as a string without going through a byte stream.
  */
 public class Ui {
     private static final String LINE = "    ____________________________________________________________";
     private static final String INDENT = "     ";
 
-    private final PrintStream out;
+    private final OutputSink out;
 
-    /** Default: print to System.out (CLI). */
+    /** Default: print to System.out, unbuffered. */
     public Ui() {
         this(System.out);
     }
 
     /**
-     * Print to the provided stream (e.g., a ByteArrayOutputStream-wrapped PrintStream for GUI).
+     * Print to the provided stream as each line is written.
      */
     public Ui(PrintStream out) {
+        this(new PrintStreamSink(out));
+    }
+
+    /**
+     * Writes all output to the given sink.
+     *
+     * @param out Destination for Pip's messages.
+     */
+    public Ui(OutputSink out) {
+        assert out != null : "sink must not be null";
         this.out = out;
     }
 
     /** Prints a horizontal divider line. */
     public void showLine() {
-        out.println(LINE);
+        out.line(LINE);
     }
 
     /** Prints the welcome banner surrounded by divider lines. */
     public void showWelcome() {
-        out.println("Hi! I'm Pip :)) What can I do for you?");
+        out.line("Hi! I'm Pip :)) What can I do for you?");
     }
 
     /**
@@ -56,9 +69,46 @@ public class Ui {
             return;
         }
 
-        for (String line : text.split("\\R", -1)) {
-            out.println(INDENT + line);
+        int start = 0;
+        int n = text.length();
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (isLineBreak(c)) {
+                out.line(INDENT, text, start, i);
+                if (c == '\r' && i + 1 < n && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
         }
+        out.line(INDENT, text, start, n);
+    }
+
+    /** The characters matched by the regex {@code \R}, apart from the CRLF pair. */
+    private static boolean isLineBreak(char c) {
+        return (c >= '\n' && c <= '\r') || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Shows the whole task list. Prints one line per task by default; the GUI overrides
+     * this to display the tasks in a scrollable list instead.
+     *
+     * @param tasks Tasks to show.
+     */
+    public void showTaskList(TaskList tasks) {
+        show(tasks.render());
+    }
+
+    /**
+     * Shows one page of the task list, numbered by position in the whole list. Prints one line
+     * per task by default, like {@link #showTaskList(TaskList)}.
+     *
+     * @param tasks Tasks to show.
+     * @param from  Index of the first task on the page.
+     * @param to    Index just past the last task on the page.
+     */
+    public void showTaskPage(TaskList tasks, int from, int to) {
+        show(tasks.render(from, to));
     }
 
     /**
@@ -67,11 +117,28 @@ public class Ui {
      * @param msg Error message to display.
      */
     public void showError(String msg) {
-        out.println(INDENT + msg);
+        out.line(INDENT, msg, 0, msg.length());
     }
 
     /** Prints a non-fatal loading warning and continues with an empty task list. */
     public void showLoadingError() {
-        out.println(INDENT + "Warning: could not load save file. Starting with an empty list.");
+        out.line(INDENT + "Warning: could not load save file. Starting with an empty list.");
+    }
+
+    /**
+     * Warns that unreadable lines in the save file were set aside and the rest was loaded.
+     *
+     * @param count Number of lines moved.
+     * @param file  File they were moved to.
+     */
+    public void showQuarantined(int count, String file) {
+        out.line(INDENT + "Warning: " + count + (count == 1 ? " line" : " lines")
+                + " of the save file could not be read and " + (count == 1 ? "was" : "were")
+                + " moved to " + file + ".");
+    }
+
+    /** Sends everything shown so far to its destination; called once per command. */
+    public void flush() {
+        out.flush();
     }
 }
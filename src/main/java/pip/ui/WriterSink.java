@@ -0,0 +1,66 @@
+package pip.ui;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Sink that collects lines in a buffered {@link Writer} and only hands them on when flushed,
+ * so a command's output reaches the console in one write.
+ */
+public class WriterSink implements OutputSink {
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private final Writer out;
+    private final String lineSeparator = System.lineSeparator();
+
+    /**
+     * Creates a sink writing to {@code out}.
+     *
+     * @param out Destination; should be buffered.
+     */
+    public WriterSink(Writer out) {
+        assert out != null : "writer must not be null";
+        this.out = out;
+    }
+
+    /**
+     * Creates a buffered sink over {@link System#out}, using the console's encoding.
+     *
+     * @return Console sink.
+     */
+    public static WriterSink console() {
+        String encoding = System.getProperty("sun.stdout.encoding");
+        Charset cs = encoding != null && Charset.isSupported(encoding)
+                ? Charset.forName(encoding)
+                : Charset.defaultCharset();
+        return new WriterSink(new BufferedWriter(new OutputStreamWriter(System.out, cs), BUFFER_SIZE));
+    }
+
+    @Override
+    public void line(String prefix, CharSequence text, int from, int to) {
+        try {
+            out.write(prefix);
+            if (text instanceof String) {
+                out.write((String) text, from, to - from);
+            } else {
+                out.append(text, from, to);
+            }
+            out.write(lineSeparator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
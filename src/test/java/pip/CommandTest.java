@@ -3,12 +3,16 @@ package pip;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,14 +24,27 @@ import pip.app.PipException;
 import pip.logic.AddDeadline;
 import pip.logic.AddEvent;
 import pip.logic.AddTodo;
+import pip.logic.BeginBatch;
+import pip.logic.Command;
+import pip.logic.CommitBatch;
 import pip.logic.DeleteTask;
+import pip.logic.DueTasks;
 import pip.logic.ExitApp;
+import pip.logic.FindConflicts;
 import pip.logic.FindTasks;
+import pip.logic.ListDay;
 import pip.logic.ListTasks;
 import pip.logic.MarkTask;
+import pip.logic.Parser;
+import pip.logic.RedoChange;
+import pip.logic.RollbackBatch;
+import pip.logic.UndoChange;
 import pip.logic.UnmarkTask;
+import pip.model.Edit;
+import pip.model.History;
 import pip.model.Task;
 import pip.model.TaskList;
+import pip.model.Todo;
 import pip.storage.Storage;
 import pip.ui.Ui;
 
@@ -36,6 +53,7 @@ class CommandTest {
     /** In-memory Storage double to avoid filesystem I/O. */
     static class FakeStorage extends Storage {
         private List<Task> lastSaved;
+        private int saveCount;
 
         FakeStorage() {
             super("ignored");
@@ -49,6 +67,7 @@ class CommandTest {
         @Override
         public void save(List<Task> items) {
             this.lastSaved = new ArrayList<>(items);
+            saveCount++;
         }
 
         List<Task> getLastSaved() {
@@ -152,7 +171,69 @@ class CommandTest {
     }
 
     @Test
-    void exit_printsMessageAndSignalsExit() {
+    void bulk_rangesListsAndDoneChangeManyTasksWithOneSave() throws PipException {
+        for (int i = 1; i <= 30; i++) {
+            new AddTodo("t" + i).execute(tasks, ui, storage);
+        }
+        grabOut();
+
+        int saves = storage.saveCount;
+        new DeleteTask("3-5, 1").execute(tasks, ui, storage);
+        assertEquals(saves + 1, storage.saveCount);
+        assertEquals(26, tasks.size());
+        assertEquals("t2", tasks.get(0).getDescription());
+        assertEquals("t6", tasks.get(1).getDescription());
+        assertTrue(grabOut().contains("removed these 4 tasks"));
+
+        new MarkTask("1,4,9-20").execute(tasks, ui, storage);
+        assertEquals(saves + 2, storage.saveCount);
+        assertEquals(14, tasks.snapshot().stream().filter(Task::isDone).count());
+        assertTrue(grabOut().contains("...and 4 more."));
+
+        new DeleteTask("done").execute(tasks, ui, storage);
+        assertEquals(12, tasks.size());
+        assertEquals(12, storage.getLastSaved().size());
+        assertTrue(tasks.snapshot().stream().noneMatch(Task::isDone));
+
+        PipException reversed = assertThrows(PipException.class,
+                () -> new UnmarkTask("5-2").execute(tasks, ui, storage));
+        assertEquals("Please write ranges from low to high, e.g. 2-5.", reversed.getMessage());
+        reversed = assertThrows(PipException.class, () -> new UnmarkTask("30-1").execute(tasks, ui, storage));
+        assertEquals("Please write ranges from low to high, e.g. 1-30.", reversed.getMessage());
+        assertThrows(PipException.class, () -> new DeleteTask("1,,2").execute(tasks, ui, storage));
+        assertThrows(PipException.class, () -> new DeleteTask("3-13").execute(tasks, ui, storage));
+        assertThrows(PipException.class, () -> new DeleteTask("done").execute(tasks, ui, storage));
+        assertEquals(12, tasks.size());
+    }
+
+    @Test
+    void parser_dispatchesThroughTheRegistryInOneScan() throws PipException {
+        Parser.parse("  deadline   essay  /by 2/12/2019 1800  ").execute(tasks, ui, storage);
+        Parser.parse("event x /to y /from Mon 2pm /to 4pm").execute(tasks, ui, storage);
+        assertEquals("essay", tasks.get(0).getDescription());
+        assertEquals("E | 0 | x /to y | Mon 2pm | 4pm", tasks.get(1).toDataString());
+        assertThrows(PipException.class, () -> Parser.parse("deadline essay").execute(tasks, ui, storage));
+        assertEquals("Please type a command!",
+                assertThrows(PipException.class, () -> Parser.parse(" \t ")).getMessage());
+
+        assertSame(Parser.parse("bye"), Parser.parse("bye"));
+        assertSame(Parser.parse("list"), Parser.parse(" list "));
+
+        Parser.register("shout", line -> new Command() {
+            @Override
+            public void execute(TaskList tasks, Ui ui, Storage storage) {
+                ui.show(line.args().toUpperCase());
+            }
+        });
+        grabOut();
+        Parser.parse("shout hello there").execute(tasks, ui, storage);
+        assertTrue(grabOut().contains("HELLO THERE"));
+        assertTrue(assertThrows(PipException.class, () -> Parser.parse("whisper")).getMessage()
+                .endsWith("rollback, stats, bye, shout.)"));
+    }
+
+    @Test
+    void exit_printsMessageAndSignalsExit() throws PipException {
         ExitApp exit = new ExitApp();
         exit.execute(tasks, ui, storage);
 
@@ -184,6 +265,96 @@ class CommandTest {
         assertTrue(printed.contains("Beta"));
     }
 
+    @Test
+    void list_pagesShowOnlyTheirTasksNumberedInTheWholeList() throws PipException {
+        for (int i = 1; i <= 7; i++) {
+            new AddTodo("task " + i).execute(tasks, ui, storage);
+        }
+        grabOut();
+
+        Parser.parse("list 2 --page-size 3").execute(tasks, ui, storage);
+        String printed = grabOut();
+        assertFalse(printed.contains("3. [T][ ] task 3"));
+        assertTrue(printed.contains("4. [T][ ] task 4"));
+        assertTrue(printed.contains("6. [T][ ] task 6"));
+        assertFalse(printed.contains("task 7"));
+        assertTrue(printed.contains("Page 2 of 3 (tasks 4-6 of 7)."));
+
+        Parser.parse("list --page-size 5").execute(tasks, ui, storage);
+        printed = grabOut();
+        assertTrue(printed.contains("5. [T][ ] task 5"));
+        assertFalse(printed.contains("task 6"));
+
+        Parser.parse("list 4 --page-size 3").execute(tasks, ui, storage);
+        assertTrue(grabOut().contains("There is no page 4; the list has 3 pages."));
+        assertThrows(PipException.class, () -> Parser.parse("list 0"));
+        assertThrows(PipException.class, () -> Parser.parse("list --page-size"));
+    }
+
+    @Test
+    void due_listsDeadlinesInRangeSoonestFirst() throws PipException {
+        new AddDeadline("essay /by 20/10/2026 1800").execute(tasks, ui, storage);
+        new AddTodo("no date").execute(tasks, ui, storage);
+        new AddDeadline("quiz /by 15/10/2026").execute(tasks, ui, storage);
+        new AddDeadline("report /by 1/11/2026").execute(tasks, ui, storage);
+        new AddDeadline("old form /by 1/10/2026").execute(tasks, ui, storage);
+        new MarkTask("5").execute(tasks, ui, storage);
+        grabOut();
+
+        new DueTasks("before 21/10/2026").execute(tasks, ui, storage);
+        String printed = grabOut();
+        assertTrue(printed.indexOf("5. [D][X] old form") < printed.indexOf("3. [D][ ] quiz"));
+        assertTrue(printed.indexOf("3. [D][ ] quiz") < printed.indexOf("1. [D][ ] essay"));
+        assertFalse(printed.contains("report"));
+
+        new DeleteTask("3").execute(tasks, ui, storage);
+        new AddDeadline("talk /by 2/11/2026 0900").execute(tasks, ui, storage);
+        grabOut();
+        new DueTasks("between 20/10/2026 2/11/2026").execute(tasks, ui, storage);
+        printed = grabOut();
+        assertTrue(printed.contains("1. [D][ ] essay"));
+        assertTrue(printed.contains("3. [D][ ] report"));
+        assertTrue(printed.contains("5. [D][ ] talk"));
+        assertFalse(printed.contains("quiz"));
+
+        Clock now = Clock.fixed(Instant.parse("2026-10-25T00:00:00Z"), ZoneOffset.UTC);
+        new DueTasks("overdue", now).execute(tasks, ui, storage);
+        printed = grabOut();
+        assertTrue(printed.contains("1. [D][ ] essay"));
+        assertFalse(printed.contains("old form"));
+        assertFalse(printed.contains("report"));
+
+        assertThrows(PipException.class, () -> new DueTasks("between 20/10/2026").execute(tasks, ui, storage));
+    }
+
+    @Test
+    void event_datesAreParsedAndQueryableByDayAndConflict() throws PipException {
+        new AddEvent("camp /from Mon 9am /to Wed 5pm").execute(tasks, ui, storage);
+        new AddEvent("lecture /from 2/10/2025 1400 /to 1600").execute(tasks, ui, storage);
+        new AddDeadline("quiz /by 2/10/2025 1000").execute(tasks, ui, storage);
+        new AddEvent("trip /from 1/10/2025 /to 3/10/2025").execute(tasks, ui, storage);
+        String printed = grabOut();
+        assertTrue(printed.contains("[E][ ] camp (from: Mon 9am to: Wed 5pm)"));
+        assertTrue(printed.contains("[E][ ] lecture (from: Oct 2 2025, 2:00 PM to: Oct 2 2025, 4:00 PM)"));
+        assertTrue(printed.contains("Heads up: this overlaps 1 other event. Type conflicts 4 to see them."));
+        assertEquals("E | 0 | lecture | 2025-10-02T14:00 | 2025-10-02T16:00", tasks.get(1).toDataString());
+        assertEquals("E | 0 | camp | Mon 9am | Wed 5pm", tasks.get(0).toDataString());
+
+        new ListDay("2/10/2025").execute(tasks, ui, storage);
+        printed = grabOut();
+        assertTrue(printed.indexOf("4. [E][ ] trip") < printed.indexOf("3. [D][ ] quiz"));
+        assertTrue(printed.indexOf("3. [D][ ] quiz") < printed.indexOf("2. [E][ ] lecture"));
+        assertFalse(printed.contains("camp"));
+
+        new DeleteTask("4").execute(tasks, ui, storage);
+        grabOut();
+        new FindConflicts("2").execute(tasks, ui, storage);
+        assertTrue(grabOut().contains("No conflicts with:"));
+        new ListDay("3/10/2025").execute(tasks, ui, storage);
+        assertTrue(grabOut().contains("Nothing on Oct 3 2025"));
+        assertThrows(PipException.class, () -> new FindConflicts("1").execute(tasks, ui, storage));
+    }
+
     @Test
     void find_singleTerm_matchesExpectedTasks() throws PipException {
         new AddTodo("Buy milk").execute(tasks, ui, storage);
@@ -202,4 +373,133 @@ class CommandTest {
         assertTrue(printed.contains("2."));
     }
 
+    @Test
+    void find_toleratesTypoAndTracksDeletes() throws PipException {
+        new AddTodo("Read book").execute(tasks, ui, storage);
+        new AddTodo("Return library bokk").execute(tasks, ui, storage);
+        new AddTodo("Buy milk").execute(tasks, ui, storage);
+        grabOut();
+
+        new FindTasks("book").execute(tasks, ui, storage);
+        String printed = grabOut();
+        assertTrue(printed.contains("Read book"));
+        assertTrue(printed.contains("Return library bokk"));
+
+        new DeleteTask("1").execute(tasks, ui, storage);
+        new AddTodo("Book flights").execute(tasks, ui, storage);
+        grabOut();
+
+        new FindTasks("book").execute(tasks, ui, storage);
+        printed = grabOut();
+        assertFalse(printed.contains("Read book"));
+        assertTrue(printed.contains("1. [T][ ] Return library bokk"));
+        assertTrue(printed.contains("2. [T][ ] Book flights"));
+    }
+
+    @Test
+    void undo_skipsMarkAndUnmarkThatChangedNothing() throws PipException {
+        new AddTodo("a").execute(tasks, ui, storage);
+        new AddTodo("b").execute(tasks, ui, storage);
+        new MarkTask("1").execute(tasks, ui, storage);
+        new MarkTask("1").execute(tasks, ui, storage);
+        new UnmarkTask("2").execute(tasks, ui, storage);
+        new MarkTask("1-2").execute(tasks, ui, storage);
+        new MarkTask("1,2").execute(tasks, ui, storage);
+        grabOut();
+
+        new UndoChange().execute(tasks, ui, storage);
+        assertTrue(grabOut().contains("Undone: marked"), "undo reverts the last real change");
+        assertTrue(tasks.get(0).isDone());
+        assertFalse(tasks.get(1).isDone());
+        new UndoChange().execute(tasks, ui, storage);
+        assertFalse(tasks.get(0).isDone());
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    void undoRedo_reverseEachCommandInOrderAndRespectTheCaps() throws PipException {
+        for (int i = 1; i <= 10; i++) {
+            new AddTodo("t" + i).execute(tasks, ui, storage);
+        }
+        new MarkTask("2").execute(tasks, ui, storage);
+        new MarkTask("1-3").execute(tasks, ui, storage);
+        new DeleteTask("2,5-7").execute(tasks, ui, storage);
+        new DeleteTask("1").execute(tasks, ui, storage);
+        String before = tasks.render();
+        grabOut();
+
+        int saves = storage.saveCount;
+        new UndoChange().execute(tasks, ui, storage);
+        String printed = grabOut();
+        assertTrue(printed.contains("Undone: deleted \"t1\"."));
+        assertTrue(printed.contains("Now you have 6 tasks in the list."));
+        new UndoChange().execute(tasks, ui, storage);
+        assertEquals(10, tasks.size());
+        assertEquals(saves + 2, storage.saveCount);
+        assertEquals(10, storage.getLastSaved().size());
+        new UndoChange().execute(tasks, ui, storage);
+        assertTrue(grabOut().contains("Undone: marked 3 tasks as done."));
+        assertTrue(tasks.get(1).isDone());
+        assertFalse(tasks.get(0).isDone() || tasks.get(2).isDone());
+
+        new RedoChange().execute(tasks, ui, storage);
+        new RedoChange().execute(tasks, ui, storage);
+        new RedoChange().execute(tasks, ui, storage);
+        assertEquals(before, tasks.render());
+        assertEquals("There is nothing to redo.",
+                assertThrows(PipException.class, () -> new RedoChange().execute(tasks, ui, storage)).getMessage());
+
+        new UndoChange().execute(tasks, ui, storage);
+        new AddTodo("new").execute(tasks, ui, storage);
+        assertThrows(PipException.class, () -> new RedoChange().execute(tasks, ui, storage));
+        for (int i = 0; i < 14; i++) {
+            new UndoChange().execute(tasks, ui, storage);
+        }
+        assertEquals(0, tasks.size());
+        assertThrows(PipException.class, () -> new UndoChange().execute(tasks, ui, storage));
+
+        new AddTodo("kept").execute(tasks, ui, storage);
+        new BeginBatch().execute(tasks, ui, storage);
+        new AddTodo("dropped").execute(tasks, ui, storage);
+        assertThrows(PipException.class, () -> new UndoChange().execute(tasks, ui, storage));
+        new RollbackBatch().execute(tasks, ui, storage);
+        new UndoChange().execute(tasks, ui, storage);
+        assertEquals(0, tasks.size());
+
+        History small = new History(1_000, 3);
+        TaskList list = new TaskList();
+        for (int i = 0; i < 5; i++) {
+            list.add(new Todo("x" + i));
+            small.record(Edit.added(i, list.get(i)));
+        }
+        assertEquals(3, small.undoableCount());
+        assertTrue(small.estimatedBytes() <= 1_000);
+        small.record(Edit.added(0, new Todo("y".repeat(500))));
+        assertEquals(0, small.undoableCount());
+        assertEquals(0, small.estimatedBytes());
+    }
+
+    @Test
+    void batch_defersSaveUntilCommitAndRollsBackOnError() throws PipException {
+        new AddTodo("before").execute(tasks, ui, storage);
+        List<Task> savedBefore = storage.getLastSaved();
+
+        new BeginBatch().execute(tasks, ui, storage);
+        new AddTodo("inside").execute(tasks, ui, storage);
+        new MarkTask("1").execute(tasks, ui, storage);
+        assertEquals(savedBefore, storage.getLastSaved());
+
+        RollbackBatch.abortOnError(tasks, ui, storage);
+        assertEquals(1, tasks.size());
+        assertFalse(tasks.get(0).isDone());
+        assertFalse(storage.isBatching());
+
+        new BeginBatch().execute(tasks, ui, storage);
+        new AddTodo("a").execute(tasks, ui, storage);
+        new BeginBatch().execute(tasks, ui, storage);
+        assertTrue(storage.isBatching());
+        new AddTodo("b").execute(tasks, ui, storage);
+        new CommitBatch().execute(tasks, ui, storage);
+        assertEquals(3, storage.getLastSaved().size());
+    }
 }
@@ -0,0 +1,104 @@
+package pip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pip.app.PipException;
+import pip.logic.AddTodo;
+import pip.logic.MarkTask;
+import pip.logic.Parser;
+import pip.metrics.LatencyHistogram;
+import pip.metrics.Metrics;
+import pip.model.TaskList;
+import pip.storage.Storage;
+import pip.ui.Ui;
+
+class MetricsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void histogram_percentilesStayWithinBucketError() throws InterruptedException {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.valueAtPercentile(50));
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1_000);
+        }
+        assertEquals(100_000, h.count());
+        assertEquals(100_000_000, h.max());
+        long p50 = h.valueAtPercentile(50);
+        long p99 = h.valueAtPercentile(99);
+        assertTrue(Math.abs(p50 - 50_000_000) <= 50_000_000 / 32, "p50 " + p50);
+        assertTrue(Math.abs(p99 - 99_000_000) <= 99_000_000 / 32, "p99 " + p99);
+        assertEquals(h.max(), h.valueAtPercentile(100));
+
+        LatencyHistogram shared = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    shared.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200_000, shared.count());
+        assertEquals(49_999, shared.max());
+    }
+
+    @Test
+    void commandsAndStorage_areRecordedAndReported() throws Exception {
+        Metrics metrics = Metrics.get();
+        long todos = metrics.command("AddTodo").count();
+        long markFailures = metrics.failures("MarkTask");
+        long saves = metrics.storage(Metrics.OP_SAVE).count();
+        long loads = metrics.storage(Metrics.OP_LOAD).count();
+
+        Storage storage = new Storage(dir.resolve("pip.txt").toString());
+        TaskList tasks = storage.loadTaskList();
+        Ui ui = new Ui(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        new AddTodo("read").run(tasks, ui, storage);
+        new AddTodo("write").run(tasks, ui, storage);
+        assertThrows(PipException.class, () -> new MarkTask("9").run(tasks, ui, storage));
+
+        assertEquals(todos + 2, metrics.command("AddTodo").count());
+        assertEquals(markFailures + 1, metrics.failures("MarkTask"));
+        assertEquals(saves + 2, metrics.storage(Metrics.OP_SAVE).count());
+        assertEquals(loads + 1, metrics.storage(Metrics.OP_LOAD).count());
+
+        ByteArrayOutputStream shown = new ByteArrayOutputStream();
+        Parser.parse("stats").run(tasks, new Ui(new PrintStream(shown, true, StandardCharsets.UTF_8)), storage);
+        String report = shown.toString(StandardCharsets.UTF_8);
+        assertTrue(report.contains("Tasks: 2, save file: "
+                + Files.size(dir.resolve("pip.txt")) + " B"), report);
+        assertTrue(report.contains("AddTodo"), report);
+        assertTrue(report.contains("storage save"), report);
+
+        Path dump = dir.resolve("pip.prom");
+        assertTrue(metrics.dump(dump));
+        String prom = Files.readString(dump);
+        assertTrue(prom.contains("pip_command_seconds_count{command=\"AddTodo\"} " + (todos + 2)), prom);
+        assertTrue(prom.contains("pip_command_failures_total{command=\"MarkTask\"} " + (markFailures + 1)), prom);
+        assertTrue(prom.contains("pip_storage_seconds{op=\"save\",quantile=\"0.99\"} "), prom);
+        assertTrue(prom.contains("pip_tasks 2\n"), prom);
+        assertTrue(prom.contains("pip_save_file_bytes " + Files.size(dir.resolve("pip.txt"))), prom);
+        assertTrue(Files.notExists(dir.resolve("pip.prom.tmp")));
+    }
+}
@@ -0,0 +1,115 @@
+package pip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pip.app.PipServer;
+import pip.storage.Storage;
+import pip.storage.WriteBehindStorage;
+
+class ServerTest {
+    private static final int CLIENTS = 32;
+    private static final int COMMANDS_PER_CLIENT = 100;
+    private static final Pattern COUNT = Pattern.compile("Now you have (\\d+) tasks");
+
+    @TempDir
+    Path dir;
+
+    /** Minimal client speaking the server's line protocol. */
+    private static final class Client implements AutoCloseable {
+        private final SocketChannel channel;
+        private final BufferedReader in;
+        private final Writer out;
+
+        Client(SocketAddress address) throws IOException {
+            channel = SocketChannel.open(address);
+            in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            out = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            readReply();
+        }
+
+        String send(String command) throws IOException {
+            out.write(command + "\n");
+            out.flush();
+            return readReply();
+        }
+
+        private String readReply() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                sb.append(line).append('\n');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    @Test
+    void concurrentClients_allCommandsAppliedAndPersisted() throws Exception {
+        String file = dir.resolve("pip.txt").toString();
+        PipServer server = new PipServer(new WriteBehindStorage(new Storage(file)),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            int client = c;
+            results.add(pool.submit(() -> {
+                try (Client conn = new Client(server.getAddress())) {
+                    int last = 0;
+                    for (int i = 0; i < COMMANDS_PER_CLIENT; i++) {
+                        Matcher m = COUNT.matcher(conn.send("todo c" + client + " n" + i));
+                        assertTrue(m.find());
+                        int count = Integer.parseInt(m.group(1));
+                        assertTrue(count > last, "counts seen by one client must increase");
+                        last = count;
+                        if (i % 10 == 0) {
+                            assertTrue(conn.send("list").contains("1. [T][ ]"));
+                        }
+                    }
+                    assertTrue(conn.send("begin").contains("not available"));
+                    assertTrue(conn.send("undo").contains("not available"));
+                    assertTrue(conn.send("bye").contains("Bye."));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : results) {
+            f.get();
+        }
+        pool.shutdown();
+        server.close();
+
+        int total = CLIENTS * COMMANDS_PER_CLIENT;
+        assertEquals(total, new Storage(file).load().size());
+    }
+}
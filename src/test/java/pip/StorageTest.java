@@ -0,0 +1,475 @@
+package pip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pip.app.PipException;
+import pip.logic.AddTodo;
+import pip.logic.DeleteTask;
+import pip.logic.MarkTask;
+import pip.logic.RedoChange;
+import pip.logic.UndoChange;
+import pip.model.Deadline;
+import pip.model.Event;
+import pip.model.Task;
+import pip.model.TaskList;
+import pip.model.Todo;
+import pip.storage.JournaledStorage;
+import pip.storage.SaveFileConverter;
+import pip.storage.SaveFormat;
+import pip.storage.SegmentedStorage;
+import pip.storage.Storage;
+import pip.storage.SyncPolicy;
+import pip.storage.WriteBehindStorage;
+import pip.ui.Ui;
+
+class StorageTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<String> render(List<Task> tasks) {
+        return tasks.stream().map(Task::toDataString).toList();
+    }
+
+    private long journalCount() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().contains(".journal-")).count();
+        }
+    }
+
+
+    private static Set<String> segmentFiles(SegmentedStorage storage) throws IOException {
+        try (Stream<Path> s = Files.list(storage.getSegmentDir())) {
+            return s.map(p -> p.getFileName().toString()).filter(n -> n.endsWith(".seg")).collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    void journal_replaysAddMarkDelete() throws PipException {
+        String file = dir.resolve("pip.txt").toString();
+        JournaledStorage storage = new JournaledStorage(file);
+        TaskList tasks = new TaskList(storage.load());
+
+        for (String d : new String[] {"a", "b", "c"}) {
+            Todo t = new Todo(d);
+            tasks.add(t);
+            storage.saveAdded(tasks.asList(), t);
+        }
+        tasks.get(1).mark();
+        storage.saveUpdated(tasks.asList(), 1);
+        tasks.remove(0);
+        storage.saveRemoved(tasks.asList(), 0);
+
+        List<Task> reloaded = new JournaledStorage(file).load();
+        assertEquals(render(tasks.asList()), render(reloaded));
+        assertTrue(reloaded.get(0).isDone());
+    }
+
+    @Test
+    void journal_compactsIntoSnapshotPastThreshold() throws PipException, IOException {
+        String file = dir.resolve("pip.txt").toString();
+        JournaledStorage storage = new JournaledStorage(file, 64);
+        TaskList tasks = new TaskList(storage.load());
+
+        for (int i = 0; i < 50; i++) {
+            Todo t = new Todo("task " + i);
+            tasks.add(t);
+            storage.saveAdded(tasks.asList(), t);
+        }
+        storage.save(tasks.asList());
+
+        assertEquals(1, journalCount());
+        List<Task> reloaded = new JournaledStorage(file).load();
+        assertEquals(render(tasks.asList()), render(reloaded));
+    }
+
+    @Test
+    void journal_ignoresTornTrailingRecord() throws PipException, IOException {
+        String file = dir.resolve("pip.txt").toString();
+        JournaledStorage storage = new JournaledStorage(file);
+        TaskList tasks = new TaskList(storage.load());
+        Todo t = new Todo("kept");
+        tasks.add(t);
+        storage.saveAdded(tasks.asList(), t);
+
+        Path journal = dir.resolve("pip.txt.journal-1");
+        Files.writeString(journal, "+ T | 0 | torn", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<Task> reloaded = new JournaledStorage(file).load();
+        assertEquals(1, reloaded.size());
+        assertFalse(reloaded.get(0).isDone());
+    }
+
+    @Test
+    void journal_appendsCleanlyAfterTornTrailingRecord() throws PipException, IOException {
+        String file = dir.resolve("pip.txt").toString();
+        JournaledStorage storage = new JournaledStorage(file);
+        TaskList tasks = new TaskList(storage.load());
+        Todo t = new Todo("kept");
+        tasks.add(t);
+        storage.saveAdded(tasks.asList(), t);
+        Files.writeString(dir.resolve("pip.txt.journal-1"), "+ T | 0 | half", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        JournaledStorage restarted = new JournaledStorage(file);
+        TaskList again = new TaskList(restarted.load());
+        again.setDone(0, true);
+        restarted.saveUpdated(again.asList(), 0);
+
+        JournaledStorage reloaded = new JournaledStorage(file);
+        assertEquals(List.of("T | 1 | kept"), render(reloaded.load()));
+        assertEquals(0, reloaded.getQuarantinedCount());
+    }
+
+    @Test
+    void writeBehind_flushWritesLatestStateAtomically() throws PipException {
+        String file = dir.resolve("pip.txt").toString();
+        WriteBehindStorage storage = new WriteBehindStorage(new Storage(file));
+        TaskList tasks = new TaskList(storage.load());
+
+        for (int i = 0; i < 200; i++) {
+            Todo t = new Todo("task " + i);
+            tasks.add(t);
+            storage.saveAdded(tasks.asList(), t);
+        }
+        tasks.get(7).mark();
+        storage.saveUpdated(tasks.asList(), 7);
+        storage.flush();
+
+        List<Task> reloaded = new Storage(file).load();
+        assertEquals(render(tasks.asList()), render(reloaded));
+        assertTrue(reloaded.get(7).isDone());
+        assertFalse(Files.exists(dir.resolve("pip.txt.tmp")));
+    }
+
+    @Test
+    void writeBehind_keepsSnapshotsWhoseWriteFailed() throws PipException, IOException {
+        Path blocker = dir.resolve("data");
+        Files.writeString(blocker, "not a directory");
+        String file = blocker.resolve("pip.txt").toString();
+        WriteBehindStorage storage = new WriteBehindStorage(new Storage(file));
+
+        List<Task> first = List.of(new Todo("first"));
+        storage.save(first);
+        assertThrows(PipException.class, storage::flush);
+        Files.delete(blocker);
+        storage.flush();
+        assertEquals(render(first), render(new Storage(file).load()));
+
+        Files.delete(Path.of(file));
+        Files.delete(blocker);
+        Files.writeString(blocker, "not a directory");
+        storage.save(List.of(new Todo("second")));
+        assertThrows(PipException.class, storage::flush);
+        List<Task> third = List.of(new Todo("third"));
+        try {
+            storage.save(third);
+        } catch (PipException e) {
+            // An earlier failure may be reported here; the snapshot is still scheduled.
+        }
+        Files.delete(blocker);
+        storage.flush();
+        assertEquals(render(third), render(new Storage(file).load()));
+    }
+
+    @Test
+    void lazyLoad_usesSidecarAndRecoversFromStaleOne() throws PipException, IOException {
+        Path file = dir.resolve("pip.txt");
+        Path sidecar = dir.resolve("pip.txt.idx");
+        List<Task> saved = List.of(new Todo("read"), new Deadline("essay", LocalDateTime.of(2019, 12, 2, 18, 0)),
+                new Event("camp", "2/10/2025 0900", "1500"));
+        String previous = System.setProperty(Storage.LOAD_PROPERTY, "lazy");
+        try {
+            new Storage(file.toString()).save(saved);
+            assertTrue(Files.exists(sidecar));
+            assertEquals(render(saved), render(new Storage(file.toString()).loadTaskList().snapshot()));
+
+            Files.writeString(file, "# comment\n\nT | 1 | first\n" + saved.get(1).toDataString() + "\n",
+                    StandardCharsets.UTF_8);
+            TaskList reloaded = new Storage(file.toString()).loadTaskList();
+            assertEquals(2, reloaded.size());
+            assertEquals("T | 1 | first", reloaded.get(0).toDataString());
+            assertEquals(saved.get(1).toDataString(), reloaded.get(1).toDataString());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(Storage.LOAD_PROPERTY);
+            } else {
+                System.setProperty(Storage.LOAD_PROPERTY, previous);
+            }
+        }
+    }
+
+    @Test
+    void load_quarantinesCorruptLinesAndKeepsTheRest() throws PipException, IOException {
+        Path file = dir.resolve("pip.txt");
+        Files.writeString(file, "T | 0 | first\nX | 1 | mystery\nD | 0 | no date\nT | 1 | last\nT | 0 | torn",
+                StandardCharsets.UTF_8);
+        Storage storage = new Storage(file.toString());
+
+        TaskList tasks = storage.loadTaskList();
+
+        assertEquals(List.of("T | 0 | first", "T | 1 | last", "T | 0 | torn"), render(tasks.asList()));
+        assertEquals(2, storage.getQuarantinedCount());
+        String quarantined = Files.readString(storage.getQuarantineFile(), StandardCharsets.UTF_8);
+        assertTrue(quarantined.contains("X | 1 | mystery\nD | 0 | no date\n"), quarantined);
+
+        assertEquals(render(tasks.asList()), render(storage.load()));
+        assertEquals(0, storage.getQuarantinedCount(), "bad lines were removed from the save file");
+    }
+
+    @Test
+    void journal_quarantinesRecordsThatCannotBeApplied() throws PipException, IOException {
+        String file = dir.resolve("pip.txt").toString();
+        JournaledStorage storage = new JournaledStorage(file);
+        TaskList tasks = new TaskList(storage.load());
+        Todo a = new Todo("a");
+        tasks.add(a);
+        storage.saveAdded(tasks.asList(), a);
+        Files.writeString(dir.resolve("pip.txt.journal-1"), "- 7\nM 0\n", StandardOpenOption.APPEND);
+
+        JournaledStorage reloaded = new JournaledStorage(file);
+        List<Task> out = reloaded.load();
+
+        assertEquals(1, out.size());
+        assertTrue(out.get(0).isDone());
+        assertEquals(1, reloaded.getQuarantinedCount());
+    }
+
+    @Test
+    void binary_keepsTasksBeforeADamagedTail() throws PipException, IOException {
+        Path file = dir.resolve("pip.bin");
+        new Storage(file.toString(), SaveFormat.BINARY).save(List.of(new Todo("a"), new Todo("b"), new Todo("c")));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        Storage storage = new Storage(file.toString());
+
+        assertEquals(List.of("T | 0 | a", "T | 0 | b"), render(storage.load()));
+        assertEquals(1, storage.getQuarantinedCount());
+        assertTrue(Files.readString(storage.getQuarantineFile()).contains("base64:"));
+    }
+
+    @Test
+    void save_replacesFileUnderEverySyncPolicy() throws PipException, IOException {
+        for (SyncPolicy policy : SyncPolicy.values()) {
+            Path file = dir.resolve(policy + ".txt");
+            Storage storage = new Storage(file.toString(), SaveFormat.TEXT, policy);
+            storage.save(List.of(new Todo("one")));
+            storage.save(List.of(new Todo("one"), new Todo("two")));
+            storage.flush();
+
+            assertEquals(List.of("T | 0 | one", "T | 0 | two"), render(storage.load()));
+            assertFalse(Files.exists(dir.resolve(policy + ".txt.tmp")));
+        }
+    }
+
+    @Test
+    void binary_roundTripsAndConvertsBackToText() throws PipException, IOException {
+        List<Task> tasks = List.of(
+                new Todo("plain"),
+                new Todo("pipe | and ünïcödé ✓"),
+                new Deadline("old", LocalDateTime.of(1960, 3, 1, 9, 30)),
+                new Deadline("new", LocalDateTime.of(2031, 12, 2, 18, 0)),
+                new Event("meet", "Mon 2pm", "4pm"));
+        tasks.get(3).mark();
+        tasks.get(4).mark();
+        String bin = dir.resolve("pip.bin").toString();
+        new Storage(bin, SaveFormat.BINARY).save(tasks);
+
+        List<Task> loaded = new Storage(bin).load();
+        assertEquals(render(tasks), render(loaded));
+
+        String txt = dir.resolve("pip.txt").toString();
+        assertEquals(5, SaveFileConverter.convert(bin, txt, SaveFormat.TEXT));
+        assertEquals(render(tasks), Files.readAllLines(Path.of(txt), StandardCharsets.UTF_8));
+        assertTrue(Files.size(Path.of(bin)) < Files.size(Path.of(txt)));
+    }
+
+    @Test
+    void journal_savesUndoAndRedoOfOneTaskAsRecords() throws PipException, IOException {
+        String file = dir.resolve("pip.txt").toString();
+        JournaledStorage storage = new JournaledStorage(file);
+        TaskList tasks = new TaskList(storage.load());
+        Ui ui = new Ui(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        for (String d : new String[] {"a", "b", "c"}) {
+            new AddTodo(d).run(tasks, ui, storage);
+        }
+        new MarkTask("3").run(tasks, ui, storage);
+        new DeleteTask("2").run(tasks, ui, storage);
+        String snapshot = Files.readString(Path.of(file));
+        new UndoChange().run(tasks, ui, storage);
+        new UndoChange().run(tasks, ui, storage);
+        new RedoChange().run(tasks, ui, storage);
+        new UndoChange().run(tasks, ui, storage);
+        new UndoChange().run(tasks, ui, storage);
+
+        assertEquals(snapshot, Files.readString(Path.of(file)));
+        List<String> records = Files.readAllLines(dir.resolve("pip.txt.journal-1"));
+        assertEquals("I 1 T | 0 | b", records.get(5));
+        assertEquals(List.of("T | 0 | a", "T | 0 | b"), render(new JournaledStorage(file).load()));
+    }
+
+    @Test
+    void journal_startsFromABinarySaveFile() throws PipException, IOException {
+        List<Task> tasks = List.of(new Todo("ünï"), new Deadline("due", LocalDateTime.of(2031, 12, 2, 18, 0)));
+        String file = dir.resolve("pip.txt").toString();
+        new Storage(file, SaveFormat.BINARY).save(tasks);
+
+        JournaledStorage storage = new JournaledStorage(file);
+        TaskList loaded = new TaskList(storage.load());
+        assertEquals(render(tasks), render(loaded.asList()));
+        Todo added = new Todo("after");
+        loaded.add(added);
+        storage.saveAdded(loaded.asList(), added);
+        assertEquals(render(loaded.asList()), render(new JournaledStorage(file).load()));
+
+        storage.save(loaded.asList());
+        assertTrue(Files.readString(Path.of(file)).startsWith("#epoch "));
+        assertEquals(render(loaded.asList()), render(new JournaledStorage(file).load()));
+    }
+
+    @Test
+    void journal_isVisibleWhenTheNextRunUsesAnotherMode() throws PipException, IOException {
+        String file = dir.resolve("pip.txt").toString();
+        JournaledStorage journaled = new JournaledStorage(file);
+        TaskList tasks = new TaskList(journaled.load());
+        for (String d : new String[] {"a", "b"}) {
+            Todo t = new Todo(d);
+            tasks.add(t);
+            journaled.saveAdded(tasks.asList(), t);
+        }
+        tasks.get(1).mark();
+        journaled.saveUpdated(tasks.asList(), 1);
+        journaled.flush();
+
+        Storage text = new Storage(file);
+        TaskList switched = text.loadTaskList();
+        assertEquals(render(tasks.asList()), render(switched.asList()));
+        assertEquals(0, journalCount(), "journals were folded into the save file");
+
+        Todo c = new Todo("c");
+        switched.add(c);
+        text.saveAdded(switched.asList(), c);
+        assertEquals(render(switched.asList()), render(new JournaledStorage(file).load()));
+    }
+
+    @Test
+    void segmented_rewritesOnlyChangedSegmentsAndReloads() throws PipException, IOException {
+        Path file = dir.resolve("pip.txt");
+        Files.writeString(file, "T | 0 | a\nT | 1 | b\nT | 0 | c\n");
+        SegmentedStorage storage = new SegmentedStorage(file.toString(), 4, SaveFormat.TEXT, SyncPolicy.NEVER);
+        TaskList tasks = storage.loadTaskList();
+        assertEquals(3, tasks.size());
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(dir.resolve("pip.txt.bak")));
+
+        for (int i = 0; i < 10; i++) {
+            Todo t = new Todo("t" + i);
+            tasks.add(t);
+            storage.saveAdded(tasks.asList(), t);
+        }
+        Set<String> before = segmentFiles(storage);
+        assertEquals(4, before.size());
+
+        tasks.setDone(5, true);
+        storage.saveUpdated(tasks.asList(), 5);
+        Set<String> after = segmentFiles(storage);
+        after.retainAll(before);
+        assertEquals(3, after.size());
+
+        before = segmentFiles(storage);
+        BitSet firstSegment = new BitSet();
+        firstSegment.set(0, 4);
+        tasks.removeAll(firstSegment);
+        storage.save(tasks.asList());
+        after = segmentFiles(storage);
+        assertEquals(3, after.size());
+        assertTrue(before.containsAll(after));
+
+        tasks.remove(8);
+        storage.saveRemoved(tasks.asList(), 8);
+        assertEquals(render(tasks.asList()), render(new SegmentedStorage(file.toString(), 4).load()));
+
+        String damaged = segmentFiles(storage).stream().sorted().findFirst().orElseThrow();
+        Files.writeString(storage.getSegmentDir().resolve(damaged), "not a task\n", StandardOpenOption.APPEND);
+        Files.writeString(storage.getSegmentDir().resolve("99999999.seg"), "T | 0 | stray\n");
+        SegmentedStorage reopened = new SegmentedStorage(file.toString(), 4);
+        TaskList reloaded = reopened.loadTaskList();
+        assertEquals(1, reopened.getQuarantinedCount());
+        assertEquals(render(tasks.asList()), render(reloaded.asList()));
+        assertFalse(segmentFiles(reopened).contains(damaged));
+        assertFalse(segmentFiles(reopened).contains("99999999.seg"));
+        SegmentedStorage repaired = new SegmentedStorage(file.toString(), 4);
+        assertEquals(render(tasks.asList()), render(repaired.load()));
+        assertEquals(0, repaired.getQuarantinedCount());
+    }
+
+    @Test
+    void segmented_isVisibleWhenTheNextRunUsesAnotherMode() throws PipException, IOException {
+        Path file = dir.resolve("pip.txt");
+        Files.writeString(file, "T | 0 | a\nT | 1 | b\nT | 0 | c\n");
+        SegmentedStorage segmented = new SegmentedStorage(file.toString(), 2, SaveFormat.TEXT, SyncPolicy.NEVER);
+        TaskList tasks = segmented.loadTaskList();
+        Todo d = new Todo("d");
+        tasks.add(d);
+        segmented.saveAdded(tasks.asList(), d);
+        segmented.flush();
+
+        Storage text = new Storage(file.toString());
+        TaskList switched = text.loadTaskList();
+        assertEquals(render(tasks.asList()), render(switched.asList()));
+        assertFalse(Files.exists(segmented.getSegmentDir()), "segments were joined into the save file");
+
+        switched.remove(0);
+        text.saveRemoved(switched.asList(), 0);
+        assertEquals(render(switched.asList()), render(new SegmentedStorage(file.toString(), 2).load()));
+        assertEquals(render(switched.asList()), render(new JournaledStorage(file.toString()).load()));
+        assertFalse(Files.exists(segmented.getSegmentDir()));
+    }
+
+    @Test
+    void segmented_mergesSmallNeighboursWhenRewritten() throws PipException, IOException {
+        Path file = dir.resolve("pip.txt");
+        SegmentedStorage storage = new SegmentedStorage(file.toString(), 4, SaveFormat.TEXT, SyncPolicy.NEVER);
+        TaskList tasks = storage.loadTaskList();
+        for (int i = 0; i < 16; i++) {
+            Todo t = new Todo("t" + i);
+            tasks.add(t);
+            storage.saveAdded(tasks.asList(), t);
+        }
+        assertEquals(4, segmentFiles(storage).size());
+
+        for (int index : new int[] {4, 4, 4, 5, 5, 5}) {
+            tasks.remove(index);
+            storage.saveRemoved(tasks.asList(), index);
+        }
+        assertEquals(3, segmentFiles(storage).size());
+
+        BitSet picked = new BitSet();
+        picked.set(1, 5);
+        tasks.removeAll(picked);
+        storage.save(tasks.asList());
+        assertEquals(2, segmentFiles(storage).size());
+        assertEquals(render(tasks.asList()), render(new SegmentedStorage(file.toString(), 4).load()));
+    }
+}
@@ -0,0 +1,358 @@
+package pip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import pip.app.PipException;
+import pip.logic.AddTodo;
+import pip.logic.Command;
+import pip.logic.DeleteTask;
+import pip.logic.FindTasks;
+import pip.logic.ListTasks;
+import pip.model.Deadline;
+import pip.model.Event;
+import pip.model.Task;
+import pip.model.TaskList;
+import pip.model.TaskSource;
+import pip.model.Todo;
+import pip.storage.Storage;
+import pip.ui.BufferSink;
+import pip.ui.Ui;
+
+class TaskListTest {
+
+    @Test
+    void positionalOps_matchArrayListAndTrackIds() {
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(new Todo("t" + i));
+        }
+        TaskList tasks = new TaskList(expected);
+        Random rnd = new Random(42);
+        List<Task> removed = new ArrayList<>();
+
+        for (int step = 0; step < 2000; step++) {
+            int op = rnd.nextInt(3);
+            if (op == 0 && !expected.isEmpty()) {
+                int i = rnd.nextInt(expected.size());
+                Task t = tasks.remove(i);
+                assertSame(expected.remove(i), t);
+                removed.add(t);
+            } else if (op == 1 && !removed.isEmpty()) {
+                Task back = removed.remove(removed.size() - 1);
+                int i = rnd.nextInt(expected.size() + 1);
+                tasks.add(i, back);
+                expected.add(i, back);
+            } else {
+                Todo t = new Todo("n" + step);
+                tasks.add(t);
+                expected.add(t);
+            }
+        }
+
+        assertEquals(expected, tasks.asList());
+        for (int i = 0; i < expected.size(); i++) {
+            Task t = expected.get(i);
+            assertSame(t, tasks.get(i));
+            assertSame(t, tasks.getById(t.getId()));
+            assertEquals(i, tasks.indexOf(t.getId()));
+        }
+        for (Task gone : removed) {
+            assertNull(tasks.getById(gone.getId()));
+            assertEquals(-1, tasks.indexOf(gone.getId()));
+        }
+    }
+
+    @Test
+    void lazyList_parsesOnlyTheTasksItReaches() throws PipException {
+        List<String> saved = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            saved.add(new Todo("saved " + i).toDataString());
+        }
+        AtomicInteger parsed = new AtomicInteger();
+        TaskList tasks = new TaskList(new TaskSource() {
+            @Override
+            public int size() {
+                return saved.size();
+            }
+
+            @Override
+            public Task load(int i) {
+                parsed.incrementAndGet();
+                try {
+                    return Task.fromDataString(saved.get(i));
+                } catch (PipException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        List<String> expected = new ArrayList<>(saved);
+        assertEquals(1000, tasks.size());
+        assertEquals(0, parsed.get());
+
+        Random rnd = new Random(3);
+        for (int step = 0; step < 200; step++) {
+            int i = rnd.nextInt(expected.size());
+            switch (rnd.nextInt(4)) {
+            case 0:
+                assertEquals(expected.remove(i), tasks.remove(i).toDataString());
+                break;
+            case 1:
+                Todo added = new Todo("added " + step);
+                tasks.add(i, added);
+                expected.add(i, added.toDataString());
+                break;
+            case 2:
+                Task t = tasks.setDone(i, true);
+                expected.set(i, t.toDataString());
+                assertEquals(i, tasks.indexOf(t.getId()));
+                break;
+            default:
+                assertEquals(expected.get(i), tasks.get(i).toDataString());
+                break;
+            }
+        }
+        assertTrue(parsed.get() <= 200, "parsed " + parsed.get() + " tasks for 200 point operations");
+
+        List<String> all = new ArrayList<>();
+        for (Task t : tasks.snapshot()) {
+            all.add(t.toDataString());
+        }
+        assertEquals(expected, all);
+        assertTrue(parsed.get() <= 1000, "each saved task is parsed at most once");
+    }
+
+    @Test
+    void removeAll_keepsIdsAndIndexesInStep() {
+        TaskList tasks = new TaskList();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < 100; i++) {
+            tasks.add(i % 2 == 0 ? new Todo("chore " + i) : new Deadline("report " + i, base.plusDays(i)));
+        }
+        assertEquals(50, tasks.findCandidates(new String[] {"chore"}).size());
+        assertEquals(50, tasks.dueBetween(base, base.plusYears(1)).size());
+        tasks.render();
+
+        BitSet chores = new BitSet();
+        for (int i = 0; i < 100; i += 2) {
+            chores.set(i);
+        }
+        Task last = tasks.get(99);
+        List<Task> removed = tasks.removeAll(chores);
+
+        assertEquals(50, removed.size());
+        assertEquals("chore 98", removed.get(49).getDescription());
+        assertEquals(50, tasks.size());
+        assertEquals(49, tasks.indexOf(last.getId()));
+        assertEquals(-1, tasks.indexOf(removed.get(0).getId()));
+        assertTrue(tasks.findCandidates(new String[] {"chore"}).isEmpty());
+        assertEquals(50, tasks.dueBetween(base, base.plusYears(1)).size());
+        assertTrue(tasks.render().contains("\n50. " + tasks.get(49)));
+    }
+
+    @Test
+    void render_staysInStepWithEveryKindOfChange() {
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(new Todo("t" + i));
+        }
+        TaskList tasks = new TaskList(expected);
+        Random rnd = new Random(7);
+
+        for (int step = 0; step < 500; step++) {
+            int op = rnd.nextInt(5);
+            if (op == 0 && !expected.isEmpty()) {
+                expected.remove(tasks.remove(rnd.nextInt(expected.size())));
+            } else if (op == 1) {
+                int i = rnd.nextInt(expected.size() + 1);
+                Todo t = new Todo("i" + step);
+                tasks.add(i, t);
+                expected.add(i, t);
+            } else if (op == 2 && !expected.isEmpty()) {
+                tasks.setDone(rnd.nextInt(expected.size()), rnd.nextBoolean());
+            } else if (op == 3 && step % 50 == 3) {
+                tasks.checkpoint();
+                tasks.add(new Todo("undone"));
+                tasks.setDone(0, !tasks.get(0).isDone());
+                tasks.rollback();
+            } else {
+                Todo t = new Todo("a" + step);
+                tasks.add(t);
+                expected.add(t);
+            }
+            if (step % 3 == 0) {
+                assertEquals(renderNaively(expected), tasks.render());
+            }
+        }
+
+        assertEquals(renderNaively(expected), tasks.render());
+        int from = expected.size() / 3;
+        String page = tasks.render(from, from + 2);
+        assertEquals(TaskList.LIST_HEADER + "\n" + (from + 1) + ". " + expected.get(from)
+                + "\n" + (from + 2) + ". " + expected.get(from + 1), page);
+    }
+
+    @Test
+    void eventsBetween_matchesLinearScanAsEventsComeAndGo() {
+        Random rnd = new Random(11);
+        List<Event> live = new ArrayList<>();
+        TaskList tasks = new TaskList();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        for (int step = 0; step < 3000; step++) {
+            if (rnd.nextInt(4) == 0 && !live.isEmpty()) {
+                Task gone = tasks.remove(rnd.nextInt(tasks.size()));
+                live.remove(gone);
+            } else {
+                LocalDateTime start = base.plusHours(rnd.nextInt(24 * 60));
+                LocalDateTime end = start.plusHours(rnd.nextInt(72));
+                Event e = new Event("e" + step, start.toString(), end.toString());
+                tasks.add(e);
+                live.add(e);
+            }
+            if (step % 100 == 0) {
+                LocalDateTime from = base.plusHours(rnd.nextInt(24 * 60));
+                LocalDateTime to = from.plusHours(1 + rnd.nextInt(48));
+                Set<Event> expected = new HashSet<>();
+                for (Event e : live) {
+                    if (e.getStart().isBefore(to) && spanEnd(e).isAfter(from)) {
+                        expected.add(e);
+                    }
+                }
+                List<Event> actual = tasks.eventsBetween(from, to);
+                assertEquals(expected, new HashSet<>(actual));
+                for (int i = 1; i < actual.size(); i++) {
+                    assertFalse(actual.get(i).getStart().isBefore(actual.get(i - 1).getStart()));
+                }
+            }
+        }
+    }
+
+    /** End of the span an event covers: an end at midnight takes in that whole day. */
+    private static LocalDateTime spanEnd(Event e) {
+        LocalDateTime end = e.getEnd().toLocalTime().equals(LocalTime.MIDNIGHT) ? e.getEnd().plusDays(1) : e.getEnd();
+        return end.isAfter(e.getStart()) ? end : e.getStart().plusSeconds(1);
+    }
+
+    private static String renderNaively(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return TaskList.EMPTY_MESSAGE;
+        }
+        StringBuilder sb = new StringBuilder(TaskList.LIST_HEADER);
+        for (int i = 0; i < tasks.size(); i++) {
+            Task t = tasks.get(i);
+            sb.append("\n").append(i + 1).append(". [T][").append(t.isDone() ? "X" : " ").append("] ")
+                    .append(t.getDescription());
+        }
+        return sb.toString();
+    }
+
+    private static final Pattern ROW = Pattern.compile("(\\d+)\\. \\[T]\\[ ] item (\\d+)");
+
+    /** Checks that rows are numbered 1..n without gaps and name each item at most once. */
+    private static void assertWellFormed(String output) {
+        String[] lines = output.split("\n");
+        Set<String> items = new HashSet<>();
+        for (int i = 1; i < lines.length; i++) {
+            Matcher m = ROW.matcher(lines[i].trim());
+            assertTrue(m.matches(), "malformed row: " + lines[i]);
+            assertEquals(i, Integer.parseInt(m.group(1)), "rows must be numbered without gaps");
+            assertTrue(items.add(m.group(2)), "item listed twice: " + lines[i]);
+        }
+    }
+
+    @Test
+    void readers_neverSeeTornStateWhileWritersAddAndDelete() throws InterruptedException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(new Todo("item " + i));
+        }
+        Storage storage = new Storage("unused.txt") {
+            @Override
+            public void save(List<Task> items) {
+            }
+        };
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger reads = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> run(failure, () -> {
+            for (int i = 200; i < 5200; i++) {
+                new AddTodo("item " + i).execute(tasks, new Ui(new BufferSink()), storage);
+            }
+        })));
+        threads.add(new Thread(() -> run(failure, () -> {
+            int deleted = 0;
+            while (deleted < 4000) {
+                // The only deleter, so a non-empty list stays non-empty until it deletes.
+                if (tasks.size() == 0) {
+                    Thread.yield();
+                    continue;
+                }
+                new DeleteTask("1").execute(tasks, new Ui(new BufferSink()), storage);
+                deleted++;
+            }
+        })));
+        for (int r = 0; r < 4; r++) {
+            Command query = r % 2 == 0 ? new ListTasks() : new FindTasks("item");
+            threads.add(new Thread(() -> run(failure, () -> {
+                BufferSink out = new BufferSink();
+                Ui ui = new Ui(out);
+                while (isWriting.get()) {
+                    query.execute(tasks, ui, storage);
+                    assertWellFormed(out.drain());
+                    reads.incrementAndGet();
+                }
+            })));
+        }
+
+        for (Thread t : threads) {
+            t.start();
+        }
+        threads.get(0).join();
+        threads.get(1).join();
+        isWriting.set(false);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(1200, tasks.size());
+        assertTrue(reads.get() > 0);
+    }
+
+    /** Body of a stress-test thread. */
+    private interface Step {
+        void run() throws PipException;
+    }
+
+    private static void run(AtomicReference<Throwable> failure, Step step) {
+        try {
+            step.run();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+}
@@ -4,13 +4,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import pip.ui.BufferSink;
 import pip.ui.Ui;
+import pip.ui.WriterSink;
 
 class UiTest {
 
@@ -78,4 +81,24 @@ class UiTest {
         assertEquals("first line", ui.readCommand(sc));
         assertEquals("second line", ui.readCommand(sc));
     }
+
+    @Test
+    void sinks_splitLinesLikeLineBreakRegex() {
+        String text = "a\r\nb\rc\u2028d\n";
+        StringBuilder expected = new StringBuilder();
+        for (String line : text.split("\\R", -1)) {
+            expected.append("     ").append(line).append('\n');
+        }
+
+        BufferSink buffer = new BufferSink();
+        new Ui(buffer).show(text);
+        assertEquals(expected.toString().trim(), buffer.drain());
+        assertEquals("", buffer.drain());
+
+        StringWriter written = new StringWriter();
+        Ui buffered = new Ui(new WriterSink(written));
+        buffered.show(text);
+        buffered.flush();
+        assertEquals(expected.toString(), written.toString().replace(System.lineSeparator(), "\n"));
+    }
 }